@@ -0,0 +1,135 @@
+package com.fun.agent.api.benchmark;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.SkillConfigPayload;
+import com.fun.agent.api.model.config.WorkflowConfigPayload;
+import com.fun.agent.api.repository.AgentConfigJdbcStore;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Row mapping plus row-to-payload assembly of {@link AgentConfigJdbcStore#findAll()}, without a database: the
+ * {@link JdbcTemplate} hands pre-built rows to the store's row mappers through a map-backed {@link ResultSet} that
+ * answers {@code getString} and {@code getLong}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentConfigAssemblyBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int agents;
+
+    private AgentConfigJdbcStore store;
+
+    @Setup
+    public void setUp() {
+        store = new AgentConfigJdbcStore(new InMemoryJdbcTemplate(AgentConfigFixtures.fleet(agents)), null);
+    }
+
+    @Benchmark
+    public List<AgentConfigPayload> findAll() {
+        return store.findAll();
+    }
+
+    private static final class InMemoryJdbcTemplate extends JdbcTemplate {
+
+        private final List<ResultSet> agentRows = new ArrayList<>();
+        private final List<ResultSet> workflowRows = new ArrayList<>();
+        private final List<ResultSet> skillRows = new ArrayList<>();
+        private final List<ResultSet> variantRows = new ArrayList<>();
+
+        private InMemoryJdbcTemplate(List<AgentConfigPayload> fleet) {
+            for (AgentConfigPayload agent : fleet) {
+                agentRows.add(row(Map.of(
+                        "agent_id", agent.id(),
+                        "display_name", agent.name(),
+                        "owner_name", agent.owner(),
+                        "status", agent.status(),
+                        "description", agent.description(),
+                        "default_workflow_id", agent.defaultWorkflowId(),
+                        "revision", agent.revision() != null ? agent.revision() : 1L)));
+                for (WorkflowConfigPayload workflow : agent.workflows()) {
+                    workflowRows.add(row(Map.of(
+                            "agent_id", agent.id(),
+                            "workflow_id", workflow.id(),
+                            "name", workflow.name(),
+                            "description", workflow.description(),
+                            "model_profile", workflow.modelProfile())));
+                }
+                for (SkillConfigPayload skill : agent.skills()) {
+                    skillRows.add(row(Map.of(
+                            "agent_id", agent.id(),
+                            "skill_id", skill.id(),
+                            "name", skill.name(),
+                            "prompt_template", skill.promptTemplate())));
+                    for (Map.Entry<String, String> variant : skill.promptVariants().entrySet()) {
+                        variantRows.add(row(Map.of(
+                                "agent_id", agent.id(),
+                                "skill_id", skill.id(),
+                                "variant_key", variant.getKey(),
+                                "prompt_template", variant.getValue())));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            List<ResultSet> rows;
+            if (sql.contains("agent_cfg.skill_prompt_variants")) {
+                rows = variantRows;
+            } else if (sql.contains("agent_cfg.skills")) {
+                rows = skillRows;
+            } else if (sql.contains("agent_cfg.workflows")) {
+                rows = workflowRows;
+            } else {
+                rows = agentRows;
+            }
+            List<T> result = new ArrayList<>(rows.size());
+            try {
+                for (int i = 0; i < rows.size(); i++) {
+                    result.add(rowMapper.mapRow(rows.get(i), i));
+                }
+            } catch (java.sql.SQLException exception) {
+                throw new IllegalStateException(exception);
+            }
+            return result;
+        }
+
+        private static ResultSet row(Map<String, Object> columns) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[] {ResultSet.class},
+                    (proxy, method, methodArgs) -> {
+                        if (method.getName().equals("getString") && methodArgs[0] instanceof String column) {
+                            return (String) columns.get(column);
+                        }
+                        if (method.getName().equals("getLong") && methodArgs[0] instanceof String column) {
+                            return columns.get(column) instanceof Number number ? number.longValue() : 0L;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+}
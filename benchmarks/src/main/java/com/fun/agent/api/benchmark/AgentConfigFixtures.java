@@ -0,0 +1,87 @@
+package com.fun.agent.api.benchmark;
+
+import com.fun.agent.api.config.AgentConfigProperties;
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.SkillConfigPayload;
+import com.fun.agent.api.model.config.WorkflowConfigPayload;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+/**
+ * Deterministic agent fleets shaped like production config. Prompt texts are shared between agents so a 10k-agent
+ * fleet fits in a default heap; ids and names are distinct per row.
+ */
+public final class AgentConfigFixtures {
+
+    public static final int WORKFLOWS_PER_AGENT = 3;
+    public static final int SKILLS_PER_AGENT = 8;
+    public static final int VARIANTS_PER_SKILL = 4;
+
+    private static final String[] STATUSES = {"ONLINE", "ONLINE", "ONLINE", "DEGRADED", "OFFLINE"};
+    private static final String[] VARIANT_KEYS = {"concise", "detailed", "formal_tone", "zh_cn", "en_us", "beta_v2"};
+    private static final String PROMPT = promptOfLength(1200);
+    private static final String VARIANT_PROMPT = promptOfLength(600);
+
+    private AgentConfigFixtures() {
+    }
+
+    public static List<AgentConfigPayload> fleet(int agentCount) {
+        List<AgentConfigPayload> agents = new ArrayList<>(agentCount);
+        for (int a = 0; a < agentCount; a++) {
+            String agentId = String.format("agent-%05d", a);
+            List<WorkflowConfigPayload> workflows = new ArrayList<>(WORKFLOWS_PER_AGENT);
+            for (int w = 0; w < WORKFLOWS_PER_AGENT; w++) {
+                workflows.add(new WorkflowConfigPayload(
+                        "workflow-" + w,
+                        " Workflow " + w + " of " + agentId + " ",
+                        "Runs step " + w,
+                        w == 0 ? "gpt-4o" : "gpt-4o-mini"));
+            }
+            List<SkillConfigPayload> skills = new ArrayList<>(SKILLS_PER_AGENT);
+            for (int s = 0; s < SKILLS_PER_AGENT; s++) {
+                Map<String, String> variants = new LinkedHashMap<>();
+                for (int v = 0; v < VARIANTS_PER_SKILL; v++) {
+                    variants.put(VARIANT_KEYS[(s + v) % VARIANT_KEYS.length], VARIANT_PROMPT);
+                }
+                skills.add(new SkillConfigPayload("skill-" + s, "Skill " + s, PROMPT, variants));
+            }
+            agents.add(new AgentConfigPayload(
+                    agentId,
+                    "Agent " + a,
+                    "owner-" + (a % 50),
+                    STATUSES[a % STATUSES.length],
+                    "Benchmark agent " + a,
+                    "workflow-1",
+                    workflows,
+                    skills,
+                    null));
+        }
+        return agents;
+    }
+
+    /**
+     * {@link AgentConfigProperties} bound by name from {@code app.agent-config.*} keys, the way Spring binds them, so
+     * new properties do not break existing callers. Unset properties take their Java defaults.
+     */
+    public static AgentConfigProperties properties(Map<String, String> agentConfig) {
+        Map<String, String> source = new LinkedHashMap<>();
+        source.put("app.agent-config.change-channel", "agent_cfg_changed");
+        agentConfig.forEach((key, value) -> source.put("app.agent-config." + key, value));
+        return new Binder(new MapConfigurationPropertySource(source))
+                .bind("app.agent-config", AgentConfigProperties.class)
+                .get();
+    }
+
+    private static String promptOfLength(int length) {
+        String sentence = "You are a helpful assistant for {{tenant}}. Answer the user's {{topic}} question precisely. ";
+        StringBuilder builder = new StringBuilder(length + sentence.length());
+        while (builder.length() < length) {
+            builder.append(sentence);
+        }
+        return builder.substring(0, length);
+    }
+}
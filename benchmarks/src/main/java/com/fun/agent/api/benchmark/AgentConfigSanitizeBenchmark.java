@@ -0,0 +1,67 @@
+package com.fun.agent.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fun.agent.api.config.AgentConfigProperties;
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.repository.AgentConfigChangeFeed;
+import com.fun.agent.api.repository.AgentConfigJsonReader;
+import com.fun.agent.api.service.AgentConfigService;
+import com.fun.agent.api.service.AgentConfigSnapshot;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@code PUT /config/agents} through {@link AgentConfigService#replaceAll} against an {@link InMemoryAgentConfigStore}
+ * with the snapshot disabled, so the time goes into sanitizing the submitted fleet. The service is built the way
+ * Spring builds it, from bound properties; its JDBC collaborators are real but never connect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentConfigSanitizeBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int agents;
+
+    private AgentConfigService service;
+    private List<AgentConfigPayload> fleet;
+
+    @Setup
+    public void setUp() {
+        AgentConfigProperties properties = AgentConfigFixtures.properties(Map.of("snapshot-enabled", "false"));
+        ObjectMapper objectMapper = new ObjectMapper();
+        JdbcTemplate unconnected = new JdbcTemplate();
+        service = new AgentConfigService(
+                new InMemoryAgentConfigStore(),
+                new AgentConfigJsonReader(new SimpleDriverDataSource(), unconnected, objectMapper),
+                new AgentConfigChangeFeed(new DataSourceProperties(), unconnected, properties),
+                objectMapper,
+                Schedulers.immediate(),
+                properties);
+        fleet = AgentConfigFixtures.fleet(agents);
+    }
+
+    @Benchmark
+    public AgentConfigSnapshot replaceAll() {
+        return service.replaceAll(fleet, null).block();
+    }
+}
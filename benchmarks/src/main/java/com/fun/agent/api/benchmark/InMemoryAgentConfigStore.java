@@ -0,0 +1,82 @@
+package com.fun.agent.api.benchmark;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.repository.AgentConfigStore;
+import com.fun.agent.api.repository.RevisionedAgentConfigs;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link AgentConfigStore} that keeps the last replaced config in memory, so service-level benchmarks measure the
+ * service rather than a database. Single-agent writes and page reads are not supported.
+ */
+final class InMemoryAgentConfigStore implements AgentConfigStore {
+
+    private final AtomicLong revision = new AtomicLong();
+    private volatile List<AgentConfigPayload> agents = List.of();
+
+    @Override
+    public Mono<List<AgentConfigPayload>> findAll() {
+        return Mono.fromSupplier(() -> agents);
+    }
+
+    @Override
+    public Mono<AgentConfigPayload> findById(String agentId) {
+        return Mono.fromSupplier(() -> agents.stream()
+                .filter(agent -> agent.id().equals(agentId))
+                .findFirst()
+                .orElse(null));
+    }
+
+    @Override
+    public Mono<List<AgentConfigPayload>> findPage(String status, String owner, String afterAgentId, int limit) {
+        return unsupported();
+    }
+
+    @Override
+    public Mono<RevisionedAgentConfigs> findAllWithRevision() {
+        return Mono.fromSupplier(() -> new RevisionedAgentConfigs(revision.get(), agents));
+    }
+
+    @Override
+    public Mono<Void> replaceAll(List<AgentConfigPayload> replacement, Long expectedRevision) {
+        return Mono.fromRunnable(() -> {
+            agents = replacement;
+            revision.incrementAndGet();
+        });
+    }
+
+    @Override
+    public Mono<Boolean> updateSkillPrompt(
+            String agentId,
+            String skillId,
+            String skillName,
+            String promptTemplate,
+            Long expectedRevision) {
+        return unsupported();
+    }
+
+    @Override
+    public Mono<Boolean> upsertSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            String promptTemplate,
+            Long expectedRevision) {
+        return unsupported();
+    }
+
+    @Override
+    public Mono<Boolean> deleteSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            Long expectedRevision) {
+        return unsupported();
+    }
+
+    private static <T> Mono<T> unsupported() {
+        return Mono.error(new UnsupportedOperationException("not supported by the in-memory benchmark store"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.fun.agent.api.benchmark;
+
+import com.fun.agent.api.model.CreateTaskRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CreateTaskRequest#toPlanePayload()}, run once per task submission.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanePayloadBenchmark {
+
+    @Param({"0", "4", "32"})
+    public int promptOverrides;
+
+    private CreateTaskRequest request;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (int i = 0; i < promptOverrides; i++) {
+            overrides.put(" skill-" + i + " ", " Override prompt for skill " + i + ". ");
+        }
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("document_id", "doc-123");
+        input.put("language", "zh-CN");
+        input.put("max_tokens", 2048);
+        request = new CreateTaskRequest(
+                "tenant-a",
+                "agent-00042",
+                "workflow-1",
+                "skill-3",
+                null,
+                overrides,
+                "concise",
+                input,
+                "Summarize the attached document in five bullet points.",
+                "req-8f14e45f");
+    }
+
+    @Benchmark
+    public Map<String, Object> toPlanePayload() {
+        return request.toPlanePayload();
+    }
+}
@@ -0,0 +1,328 @@
+package com.fun.agent.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Closed-loop driver: {@code concurrency} virtual users each pick an operation by weight, wait for it to finish
+ * and immediately start the next. Only operations started after the warm-up are recorded.
+ */
+final class LoadDriver implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int RECENT_TASKS = 4096;
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient client;
+    private final List<String> agentIds = new ArrayList<>();
+    private final Map<String, OperationStats> stats = new LinkedHashMap<>();
+    private final Map<String, Supplier<Mono<Void>>> operations = new LinkedHashMap<>();
+    private final AtomicReferenceArray<String> recentTasks = new AtomicReferenceArray<>(RECENT_TASKS);
+    private final AtomicLong createdTasks = new AtomicLong();
+    private final String[] weightedOperations;
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    LoadDriver(LoadTestOptions options, int appPort) {
+        this.options = options;
+        this.connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.concurrency() * Math.max(1, options.sseFanout()) + 64)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = HttpClient.create(connectionProvider).baseUrl("http://127.0.0.1:" + appPort);
+        for (int i = 0; i < options.agents(); i++) {
+            agentIds.add(String.format("agent-%05d", i));
+        }
+        operations.put("create", this::createTask);
+        operations.put("poll", this::pollTask);
+        operations.put("sse", this::streamEvents);
+        operations.put("config-list", () -> get("config-list", "/api/v1/config/agents"));
+        operations.put("config-get", () -> get("config-get", "/api/v1/config/agents/" + randomAgent()));
+        operations.put("config-write", this::writeSkillPrompt);
+        operations.put("models", () -> get("models", "/api/v1/models"));
+        List<String> weighted = new ArrayList<>();
+        options.mix().forEach((name, weight) -> {
+            if (!operations.containsKey(name)) {
+                throw new IllegalArgumentException("unknown operation in loadtest.mix: " + name
+                        + " (known: " + operations.keySet() + ")");
+            }
+            for (int i = 0; i < weight; i++) {
+                weighted.add(name);
+            }
+        });
+        this.weightedOperations = weighted.toArray(String[]::new);
+        for (String name : operations.keySet()) {
+            stats.put(name, new OperationStats(name));
+        }
+        stats.put("sse-first-event", new OperationStats("sse-first-event"));
+    }
+
+    /**
+     * Replaces the stored config with {@code loadtest.agents} agents of 3 workflows and 6 skills each.
+     */
+    void seedConfig() {
+        List<Map<String, Object>> agents = new ArrayList<>(agentIds.size());
+        for (String agentId : agentIds) {
+            List<Map<String, Object>> workflows = new ArrayList<>();
+            for (int w = 0; w < 3; w++) {
+                workflows.add(Map.of("id", "workflow-" + w, "name", "Workflow " + w, "modelProfile", "gpt-4o"));
+            }
+            List<Map<String, Object>> skills = new ArrayList<>();
+            for (int s = 0; s < 6; s++) {
+                skills.add(Map.of(
+                        "id", "skill-" + s,
+                        "name", "Skill " + s,
+                        "promptTemplate", "You are skill " + s + " of " + agentId + ". Answer precisely.",
+                        "promptVariants", Map.of("concise", "Answer in one sentence.")));
+            }
+            agents.add(Map.of(
+                    "id", agentId,
+                    "name", "Agent " + agentId,
+                    "owner", "owner-" + (agents.size() % 10),
+                    "status", "ONLINE",
+                    "defaultWorkflowId", "workflow-0",
+                    "workflows", workflows,
+                    "skills", skills));
+        }
+        Integer status = send("PUT", "/api/v1/config/agents", Map.of("agents", agents))
+                .map(Response::status)
+                .block(Duration.ofMinutes(5));
+        if (status == null || status / 100 != 2) {
+            throw new IllegalStateException("seeding config failed with status " + status);
+        }
+    }
+
+    Map<String, OperationStats> run() {
+        long startNanos = System.nanoTime();
+        measureFromNanos = startNanos + Duration.ofSeconds(options.warmupSeconds()).toNanos();
+        long endNanos = measureFromNanos + Duration.ofSeconds(options.durationSeconds()).toNanos();
+        Flux.range(0, options.concurrency())
+                .flatMap(user -> Mono.defer(this::nextOperation)
+                        .repeat(() -> System.nanoTime() < endNanos), options.concurrency())
+                .blockLast();
+        return stats;
+    }
+
+    long createdTasks() {
+        return createdTasks.get();
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(10));
+    }
+
+    private Mono<Void> nextOperation() {
+        String name = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+        return operations.get(name).get();
+    }
+
+    private Mono<Void> createTask() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("tenantId", "tenant-" + ThreadLocalRandom.current().nextInt(Math.max(1, options.tenants())));
+        body.put("agentId", randomAgent());
+        body.put("skillId", "skill-" + ThreadLocalRandom.current().nextInt(6));
+        body.put("prompt", "Summarize the attached document in five bullet points.");
+        return timed("create", () -> send("POST", "/api/v1/tasks", body), response -> {
+            JsonNode taskId = readTree(response.body()).path("task_id");
+            if (taskId.isTextual()) {
+                long index = createdTasks.getAndIncrement();
+                recentTasks.set((int) (index % RECENT_TASKS), taskId.asText());
+            }
+        });
+    }
+
+    private Mono<Void> pollTask() {
+        String taskId = randomRecentTask();
+        if (taskId == null) {
+            return createTask();
+        }
+        return get("poll", "/api/v1/tasks/" + taskId);
+    }
+
+    private Mono<Void> writeSkillPrompt() {
+        String path = "/api/v1/config/agents/" + randomAgent() + "/skills/skill-"
+                + ThreadLocalRandom.current().nextInt(6);
+        Map<String, Object> body = Map.of(
+                "name", "Skill",
+                "promptTemplate", "Updated prompt " + System.nanoTime());
+        return timed("config-write", () -> send("PUT", path, body), response -> {
+        });
+    }
+
+    /**
+     * Opens {@code loadtest.sse-fanout} concurrent subscriptions to the events of one recent task and waits for all
+     * of them to end. Records time to first event per subscriber and the whole fan-out as {@code sse}.
+     */
+    private Mono<Void> streamEvents() {
+        String taskId = randomRecentTask();
+        if (taskId == null) {
+            return createTask();
+        }
+        long startNanos = System.nanoTime();
+        OperationStats firstEvent = stats.get("sse-first-event");
+        OperationStats stream = stats.get("sse");
+        return Flux.range(0, Math.max(1, options.sseFanout()))
+                .flatMap(subscriber -> {
+                    AtomicBoolean first = new AtomicBoolean();
+                    return client.get()
+                            .uri("/api/v1/tasks/" + taskId + "/events")
+                            .response((response, body) -> response.status().code() == 200
+                                    ? body.asByteArray()
+                                    : Flux.error(new StatusException(response.status().code())))
+                            .doOnNext(chunk -> {
+                                if (first.compareAndSet(false, true) && measuring(startNanos)) {
+                                    firstEvent.recordSuccess(System.nanoTime() - startNanos);
+                                }
+                            })
+                            .then();
+                })
+                .then()
+                .timeout(REQUEST_TIMEOUT.plusMillis(options.taskDurationMillis()))
+                .doOnSuccess(ignored -> {
+                    if (measuring(startNanos)) {
+                        stream.recordSuccess(System.nanoTime() - startNanos);
+                    }
+                })
+                .onErrorResume(error -> {
+                    if (measuring(startNanos)) {
+                        stream.recordError(errorKind(error));
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> get(String name, String path) {
+        return timed(name, () -> send("GET", path, null), response -> {
+        });
+    }
+
+    private Mono<Void> timed(
+            String name,
+            Supplier<Mono<Response>> call,
+            Consumer<Response> onSuccess) {
+        OperationStats operation = stats.get(name);
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return call.get()
+                    .timeout(REQUEST_TIMEOUT)
+                    .doOnNext(response -> {
+                        boolean ok = response.status() / 100 == 2 || response.status() == 304;
+                        if (ok) {
+                            onSuccess.accept(response);
+                        }
+                        if (!measuring(startNanos)) {
+                            return;
+                        }
+                        if (ok) {
+                            operation.recordSuccess(System.nanoTime() - startNanos);
+                        } else {
+                            operation.recordError("http_" + response.status());
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        if (measuring(startNanos)) {
+                            operation.recordError(errorKind(error));
+                        }
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    private Mono<Response> send(String method, String path, Object body) {
+        HttpClient.RequestSender sender = switch (method) {
+            case "POST" -> client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+                    .post();
+            case "PUT" -> client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+                    .put();
+            default -> null;
+        };
+        if (sender == null) {
+            return client.get()
+                    .uri(path)
+                    .responseSingle((response, content) -> content.asByteArray()
+                            .defaultIfEmpty(new byte[0])
+                            .map(bytes -> new Response(response.status().code(), bytes)));
+        }
+        return sender.uri(path)
+                .send(ByteBufFlux.fromString(Mono.fromCallable(() -> objectMapper.writeValueAsString(body))))
+                .responseSingle((response, content) -> content.asByteArray()
+                        .defaultIfEmpty(new byte[0])
+                        .map(bytes -> new Response(response.status().code(), bytes)));
+    }
+
+    private boolean measuring(long startNanos) {
+        return startNanos >= measureFromNanos;
+    }
+
+    private String randomAgent() {
+        return agentIds.get(ThreadLocalRandom.current().nextInt(agentIds.size()));
+    }
+
+    private String randomRecentTask() {
+        long created = createdTasks.get();
+        if (created == 0) {
+            return null;
+        }
+        int bound = (int) Math.min(created, RECENT_TASKS);
+        return recentTasks.get(ThreadLocalRandom.current().nextInt(bound));
+    }
+
+    private JsonNode readTree(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException exception) {
+            return objectMapper.missingNode();
+        }
+    }
+
+    private static String errorKind(Throwable error) {
+        if (error instanceof StatusException statusException) {
+            return "http_" + statusException.status;
+        }
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    private record Response(int status, byte[] body) {
+
+        @Override
+        public String toString() {
+            return status + " " + new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class StatusException extends RuntimeException {
+
+        private final int status;
+
+        private StatusException(int status) {
+            super("unexpected status " + status, null, false, false);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.fun.agent.api.loadtest;
+
+import com.fun.agent.api.FunAiAgentApiApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts Postgres (embedded unless {@code loadtest.db.url} is set), the upstream stubs and the application on a
+ * random port, seeds agent config, drives the configured workload and prints throughput and latency percentiles
+ * per operation. Any {@code -Dloadtest.app.<key>=<value>} is passed to the application as {@code <key>=<value>}.
+ */
+public final class LoadTestMain {
+
+    private static final String APP_PROPERTY_PREFIX = "loadtest.app.";
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+        EmbeddedPostgres embeddedPostgres = null;
+        String dbUrl = options.dbUrl();
+        if (dbUrl.isBlank()) {
+            embeddedPostgres = EmbeddedPostgres.builder().start();
+            dbUrl = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        }
+        try (UpstreamStubs stubs = new UpstreamStubs(options)) {
+            stubs.start();
+            try (ConfigurableApplicationContext app = startApplication(options, dbUrl, stubs)) {
+                int port = ((ReactiveWebServerApplicationContext) app).getWebServer().getPort();
+                try (LoadDriver driver = new LoadDriver(options, port)) {
+                    driver.seedConfig();
+                    System.out.printf(
+                            "running %ds warm-up + %ds measured, %d users, mix %s%n",
+                            options.warmupSeconds(),
+                            options.durationSeconds(),
+                            options.concurrency(),
+                            options.mix());
+                    Map<String, OperationStats> stats = driver.run();
+                    LoadTestReport.print(System.out, options, stats, stubs, driver.createdTasks());
+                }
+            }
+        } finally {
+            if (embeddedPostgres != null) {
+                embeddedPostgres.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(
+            LoadTestOptions options,
+            String dbUrl,
+            UpstreamStubs stubs) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", dbUrl);
+        properties.put("spring.datasource.username", options.dbUsername());
+        properties.put("spring.datasource.password", options.dbPassword());
+        properties.put("plane.base-url", stubs.planeBaseUrl());
+        properties.put("gateway.base-url", stubs.gatewayBaseUrl());
+        properties.put("gateway.token", "loadtest");
+        properties.put("app.tenant-limits.enabled", false);
+        System.getProperties().forEach((key, value) -> {
+            String name = key.toString();
+            if (name.startsWith(APP_PROPERTY_PREFIX)) {
+                properties.put(name.substring(APP_PROPERTY_PREFIX.length()), value);
+            }
+        });
+        // passed as command line arguments so they take precedence over application.yml
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(FunAiAgentApiApplication.class).run(args);
+    }
+}
@@ -0,0 +1,97 @@
+package com.fun.agent.api.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code -Dloadtest.*} system properties.
+ *
+ * @param dbUrl                JDBC URL of an existing Postgres; when blank an embedded Postgres is started
+ * @param warmupSeconds        load applied before measuring starts
+ * @param durationSeconds      measured load duration
+ * @param concurrency          closed-loop virtual users
+ * @param mix                  relative weight per operation
+ * @param sseFanout            concurrent subscribers opened per task by one {@code sse} operation
+ * @param agents               agents seeded into the config store before the run
+ * @param tenants              distinct tenant ids task creation spreads over
+ * @param planeLatencyMillis   base latency of every plane stub response
+ * @param planeJitterMillis    random extra latency of plane stub responses
+ * @param planeErrorRate       fraction (0..1) of plane stub responses answered with 500
+ * @param gatewayLatencyMillis base latency of the model gateway stub
+ * @param gatewayErrorRate     fraction (0..1) of model gateway stub responses answered with 500
+ * @param taskDurationMillis   time a stubbed task takes from creation to {@code succeeded}
+ * @param eventsPerTask        events streamed for one task, the last one terminal
+ */
+record LoadTestOptions(
+        String dbUrl,
+        String dbUsername,
+        String dbPassword,
+        int warmupSeconds,
+        int durationSeconds,
+        int concurrency,
+        Map<String, Integer> mix,
+        int sseFanout,
+        int agents,
+        int tenants,
+        int planeLatencyMillis,
+        int planeJitterMillis,
+        double planeErrorRate,
+        int gatewayLatencyMillis,
+        double gatewayErrorRate,
+        int taskDurationMillis,
+        int eventsPerTask) {
+
+    static final String DEFAULT_MIX =
+            "create=25,poll=35,sse=5,config-list=5,config-get=20,config-write=5,models=5";
+
+    static LoadTestOptions fromSystemProperties() {
+        return new LoadTestOptions(
+                property("db.url", ""),
+                property("db.username", "postgres"),
+                property("db.password", "postgres"),
+                intProperty("warmup-seconds", 10),
+                intProperty("duration-seconds", 60),
+                intProperty("concurrency", 64),
+                parseMix(property("mix", DEFAULT_MIX)),
+                intProperty("sse-fanout", 8),
+                intProperty("agents", 200),
+                intProperty("tenants", 20),
+                intProperty("plane.latency-ms", 20),
+                intProperty("plane.jitter-ms", 10),
+                doubleProperty("plane.error-rate", 0.0),
+                intProperty("gateway.latency-ms", 50),
+                doubleProperty("gateway.error-rate", 0.0),
+                intProperty("task-duration-ms", 2000),
+                intProperty("events-per-task", 10));
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix entries must look like name=weight: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(pair[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix must contain at least one positive weight");
+        }
+        return mix;
+    }
+
+    private static String property(String name, String fallback) {
+        return System.getProperty("loadtest." + name, fallback);
+    }
+
+    private static int intProperty(String name, int fallback) {
+        return Integer.parseInt(property(name, Integer.toString(fallback)));
+    }
+
+    private static double doubleProperty(String name, double fallback) {
+        return Double.parseDouble(property(name, Double.toString(fallback)));
+    }
+}
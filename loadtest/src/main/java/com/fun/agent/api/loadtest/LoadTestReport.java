@@ -0,0 +1,49 @@
+package com.fun.agent.api.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+final class LoadTestReport {
+
+    private LoadTestReport() {
+    }
+
+    static void print(
+            PrintStream out,
+            LoadTestOptions options,
+            Map<String, OperationStats> stats,
+            UpstreamStubs stubs,
+            long createdTasks) {
+        double seconds = Math.max(1, options.durationSeconds());
+        out.println();
+        out.printf("%-16s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "ok", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long totalOk = 0;
+        long totalErrors = 0;
+        for (OperationStats operation : stats.values()) {
+            if (operation.successes() == 0 && operation.errors() == 0) {
+                continue;
+            }
+            totalOk += operation.name().equals("sse-first-event") ? 0 : operation.successes();
+            totalErrors += operation.errors();
+            out.printf("%-16s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.name(),
+                    operation.successes(),
+                    operation.errors(),
+                    operation.successes() / seconds,
+                    operation.percentileMillis(50),
+                    operation.percentileMillis(90),
+                    operation.percentileMillis(99),
+                    operation.percentileMillis(99.9),
+                    operation.maxMillis());
+        }
+        out.printf("%ntotal: %.1f ok ops/s, %d errors%n", totalOk / seconds, totalErrors);
+        for (OperationStats operation : stats.values()) {
+            if (!operation.errorsByKind().isEmpty()) {
+                out.printf("  %s errors: %s%n", operation.name(), operation.errorsByKind());
+            }
+        }
+        out.printf("tasks created: %d, plane stub requests: %d, gateway stub requests: %d%n",
+                createdTasks, stubs.planeRequests(), stubs.gatewayRequests());
+    }
+}
@@ -0,0 +1,61 @@
+package com.fun.agent.api.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram (successful calls only) and outcome counts of one operation.
+ */
+final class OperationStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> errorsByKind = new ConcurrentHashMap<>();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void recordSuccess(long latencyNanos) {
+        latencies.recordValue(Math.min(MAX_TRACKABLE_NANOS, Math.max(0, latencyNanos)));
+    }
+
+    void recordError(String kind) {
+        errors.increment();
+        errorsByKind.computeIfAbsent(kind, ignored -> new LongAdder()).increment();
+    }
+
+    long successes() {
+        return latencies.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    double maxMillis() {
+        return latencies.getMaxValue() / 1_000_000.0;
+    }
+
+    Map<String, Long> errorsByKind() {
+        Map<String, Long> result = new TreeMap<>();
+        errorsByKind.forEach((kind, count) -> result.put(kind, count.sum()));
+        return result;
+    }
+}
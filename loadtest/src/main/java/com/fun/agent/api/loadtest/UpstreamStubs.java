@@ -0,0 +1,162 @@
+package com.fun.agent.api.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * In-process Netty stand-ins for the plane ({@code /v1/tasks}, including the SSE event stream) and the model
+ * gateway ({@code /v1/models}), with configurable latency and error injection. Tasks run for
+ * {@code taskDurationMillis} and then report {@code succeeded}.
+ */
+final class UpstreamStubs implements AutoCloseable {
+
+    private static final String MODELS_BODY = """
+            {"object":"list","data":[{"id":"gpt-4o","object":"model"},{"id":"gpt-4o-mini","object":"model"},\
+            {"id":"qwen-max","object":"model"}]}""";
+
+    private final LoadTestOptions options;
+    private final Map<String, Long> taskCreatedAtNanos = new ConcurrentHashMap<>();
+    private final AtomicLong planeRequests = new AtomicLong();
+    private final AtomicLong gatewayRequests = new AtomicLong();
+    private DisposableServer plane;
+    private DisposableServer gateway;
+
+    UpstreamStubs(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    void start() {
+        plane = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .post("/v1/tasks", (request, response) -> request.receive().then()
+                                .then(planeDelay())
+                                .then(Mono.defer(() -> createTask(response))))
+                        .get("/v1/tasks/{taskId}/events", (request, response) ->
+                                streamEvents(request.param("taskId"), response))
+                        .get("/v1/tasks/{taskId}", (request, response) -> planeDelay()
+                                .then(Mono.defer(() -> getTask(request.param("taskId"), response))))
+                        .post("/v1/tasks/{taskId}/cancel", (request, response) -> request.receive().then()
+                                .then(planeDelay())
+                                .then(Mono.defer(() -> json(response, HttpResponseStatus.OK,
+                                        taskJson(request.param("taskId"), "cancelled"))))))
+                .bindNow();
+        gateway = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.get("/v1/models", (request, response) -> {
+                    gatewayRequests.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(options.gatewayLatencyMillis()))
+                            .then(Mono.defer(() -> injectError(options.gatewayErrorRate())
+                                    ? error(response)
+                                    : json(response, HttpResponseStatus.OK, MODELS_BODY)));
+                }))
+                .bindNow();
+    }
+
+    String planeBaseUrl() {
+        return "http://127.0.0.1:" + plane.port();
+    }
+
+    String gatewayBaseUrl() {
+        return "http://127.0.0.1:" + gateway.port() + "/v1";
+    }
+
+    long planeRequests() {
+        return planeRequests.get();
+    }
+
+    long gatewayRequests() {
+        return gatewayRequests.get();
+    }
+
+    @Override
+    public void close() {
+        if (plane != null) {
+            plane.disposeNow();
+        }
+        if (gateway != null) {
+            gateway.disposeNow();
+        }
+    }
+
+    private Mono<Void> createTask(HttpServerResponse response) {
+        if (injectError(options.planeErrorRate())) {
+            return error(response);
+        }
+        String taskId = "task-" + UUID.randomUUID();
+        taskCreatedAtNanos.put(taskId, System.nanoTime());
+        return json(response, HttpResponseStatus.ACCEPTED, taskJson(taskId, "queued"));
+    }
+
+    private Mono<Void> getTask(String taskId, HttpServerResponse response) {
+        if (injectError(options.planeErrorRate())) {
+            return error(response);
+        }
+        Long createdAt = taskCreatedAtNanos.get(taskId);
+        if (createdAt == null) {
+            return json(response, HttpResponseStatus.NOT_FOUND, "{\"error\":\"task not found\"}");
+        }
+        boolean done = Duration.ofNanos(System.nanoTime() - createdAt).toMillis() >= options.taskDurationMillis();
+        return json(response, HttpResponseStatus.OK, taskJson(taskId, done ? "succeeded" : "running"));
+    }
+
+    private Publisher<Void> streamEvents(String taskId, HttpServerResponse response) {
+        planeRequests.incrementAndGet();
+        int events = Math.max(1, options.eventsPerTask());
+        Duration interval = Duration.ofMillis(Math.max(1, options.taskDurationMillis() / events));
+        Flux<String> frames = Flux.interval(interval)
+                .take(events)
+                .map(index -> {
+                    boolean last = index == events - 1;
+                    String status = last ? "succeeded" : "running";
+                    return "id:" + (index + 1) + "\nevent:" + (last ? "task.succeeded" : "task.progress")
+                            + "\ndata:{\"task_id\":\"" + taskId + "\",\"status\":\"" + status
+                            + "\",\"progress\":" + (index + 1) + "}\n\n";
+                });
+        return response.status(HttpResponseStatus.OK)
+                .header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream")
+                .sendString(frames, StandardCharsets.UTF_8);
+    }
+
+    private Mono<Void> planeDelay() {
+        planeRequests.incrementAndGet();
+        int jitter = options.planeJitterMillis() > 0
+                ? ThreadLocalRandom.current().nextInt(options.planeJitterMillis() + 1)
+                : 0;
+        return Mono.delay(Duration.ofMillis(options.planeLatencyMillis() + jitter)).then();
+    }
+
+    private static boolean injectError(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static String taskJson(String taskId, String status) {
+        return "{\"task_id\":\"" + taskId + "\",\"status\":\"" + status + "\"}";
+    }
+
+    private static Mono<Void> error(HttpServerResponse response) {
+        return json(response, HttpResponseStatus.INTERNAL_SERVER_ERROR, "{\"error\":\"injected failure\"}");
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, HttpResponseStatus status, String body) {
+        return response.status(status)
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .sendString(Mono.just(body), StandardCharsets.UTF_8)
+                .then();
+    }
+}
@@ -1,13 +1,23 @@
 package com.fun.agent.api;
 
+import com.fun.agent.api.config.AgentConfigProperties;
 import com.fun.agent.api.config.GatewayProperties;
 import com.fun.agent.api.config.PlaneProperties;
+import com.fun.agent.api.config.TenantLimitsProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
-@SpringBootApplication
-@EnableConfigurationProperties({PlaneProperties.class, GatewayProperties.class})
+// The r2dbc config store owns its connection pool; Boot's R2DBC setup would otherwise want a spring.r2dbc.url and
+// put a reactive transaction manager in place of the JDBC one behind @Transactional.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+@EnableConfigurationProperties({
+        PlaneProperties.class,
+        GatewayProperties.class,
+        AgentConfigProperties.class,
+        TenantLimitsProperties.class})
 public class FunAiAgentApiApplication {
 
     public static void main(String[] args) {
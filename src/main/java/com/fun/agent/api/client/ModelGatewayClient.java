@@ -1,10 +1,13 @@
 package com.fun.agent.api.client;
 
 import com.fun.agent.api.config.GatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
@@ -13,10 +16,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 @Component
 public class ModelGatewayClient {
 
+    private static final Logger log = LoggerFactory.getLogger(ModelGatewayClient.class);
     private static final ParameterizedTypeReference<Map<String, Object>> MAP_TYPE =
             new ParameterizedTypeReference<>() {
             };
@@ -24,48 +29,112 @@ public class ModelGatewayClient {
     private final WebClient webClient;
     private final Duration timeout;
     private final GatewayProperties properties;
-    private final AtomicReference<Map<String, Object>> modelsCache = new AtomicReference<>();
-    private final AtomicLong cacheExpireAtEpochMs = new AtomicLong(0L);
+    private final UpstreamGuard guard;
+    private final Counter freshHits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final AtomicReference<CachedModels> modelsCache = new AtomicReference<>();
+    private final AtomicReference<Mono<Map<String, Object>>> inFlightRefresh = new AtomicReference<>();
 
     public ModelGatewayClient(
             @Qualifier("gatewayWebClient") WebClient gatewayWebClient,
             @Qualifier("gatewayTimeout") Duration gatewayTimeout,
-            GatewayProperties properties) {
+            @Qualifier("gatewayGuard") UpstreamGuard gatewayGuard,
+            GatewayProperties properties,
+            MeterRegistry meterRegistry) {
         this.webClient = gatewayWebClient;
         this.timeout = gatewayTimeout;
+        this.guard = gatewayGuard;
         this.properties = properties;
+        this.freshHits = modelsCacheCounter(meterRegistry, "hit");
+        this.staleHits = modelsCacheCounter(meterRegistry, "stale");
+        this.misses = modelsCacheCounter(meterRegistry, "miss");
     }
 
+    /**
+     * Serves models from cache. A fresh entry is returned as is; a stale one (within
+     * {@code gateway.models-max-stale-seconds}) is returned immediately while one shared refresh runs in the
+     * background. Without a usable entry the caller waits on the shared refresh, and if that fails the last good
+     * payload is served regardless of its age.
+     */
     public Mono<Map<String, Object>> listModels() {
         long now = System.currentTimeMillis();
-        Map<String, Object> cached = modelsCache.get();
-        if (cached != null && now < cacheExpireAtEpochMs.get()) {
-            return Mono.just(cached);
+        CachedModels cached = modelsCache.get();
+        if (cached != null && now < cached.freshUntilEpochMs()) {
+            freshHits.increment();
+            return Mono.just(cached.payload());
         }
+        if (cached != null && now < cached.staleUntilEpochMs()) {
+            staleHits.increment();
+            sharedRefresh().subscribe(ignored -> {
+            }, error -> log.warn("background models refresh failed: {}", error.getMessage()));
+            return Mono.just(cached.payload());
+        }
+        misses.increment();
+        return sharedRefresh().onErrorResume(error -> {
+            CachedModels lastGood = modelsCache.get();
+            return lastGood != null ? Mono.just(lastGood.payload()) : Mono.error(error);
+        });
+    }
+
+    /**
+     * Returns the refresh already in flight or starts one. The upstream call is subscribed independently of the
+     * callers, so a cancelled request does not abort a refresh other callers are waiting on.
+     */
+    private Mono<Map<String, Object>> sharedRefresh() {
+        while (true) {
+            Mono<Map<String, Object>> existing = inFlightRefresh.get();
+            if (existing != null) {
+                return existing;
+            }
+            Sinks.One<Map<String, Object>> sink = Sinks.one();
+            Mono<Map<String, Object>> shared = sink.asMono();
+            if (!inFlightRefresh.compareAndSet(null, shared)) {
+                continue;
+            }
+            fetchModels()
+                    .doOnNext(this::refreshCache)
+                    .doFinally(signal -> inFlightRefresh.compareAndSet(shared, null))
+                    .subscribe(sink::tryEmitValue, sink::tryEmitError, sink::tryEmitEmpty);
+            return shared;
+        }
+    }
 
+    private Mono<Map<String, Object>> fetchModels() {
         String token = properties.token() == null ? "" : properties.token().trim();
         if (token.isEmpty()) {
             return Mono.error(new IllegalStateException("GATEWAY_TOKEN is not configured."));
         }
 
         return webClient.get()
-                .uri("models")
+                .uri("/models")
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, this::mapError)
                 .bodyToMono(MAP_TYPE)
                 .timeout(timeout)
-                .doOnNext(this::refreshCache);
+                .transform(guard::protect);
     }
 
     private void refreshCache(Map<String, Object> payload) {
-        int cacheSeconds = Math.max(0, properties.modelsCacheSeconds());
-        modelsCache.set(payload);
-        cacheExpireAtEpochMs.set(System.currentTimeMillis() + (cacheSeconds * 1000L));
+        long now = System.currentTimeMillis();
+        long freshMillis = Math.max(0, properties.modelsCacheSeconds()) * 1000L;
+        long staleMillis = Math.max(0, properties.modelsMaxStaleSeconds()) * 1000L;
+        modelsCache.set(new CachedModels(payload, now + freshMillis, now + freshMillis + staleMillis));
     }
 
     private Mono<? extends Throwable> mapError(org.springframework.web.reactive.function.client.ClientResponse response) {
         return response.bodyToMono(String.class).defaultIfEmpty("gateway request failed").map(message ->
                 new ResponseStatusException(response.statusCode(), message));
     }
+
+    private static Counter modelsCacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("models.cache.requests")
+                .description("Model list lookups by cache result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record CachedModels(Map<String, Object> payload, long freshUntilEpochMs, long staleUntilEpochMs) {
+    }
 }
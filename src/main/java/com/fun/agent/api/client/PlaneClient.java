@@ -2,11 +2,13 @@ package com.fun.agent.api.client;
 
 import java.time.Duration;
 import java.util.Map;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
@@ -15,59 +17,87 @@ import reactor.core.publisher.Mono;
 @Component
 public class PlaneClient {
 
-    private static final ParameterizedTypeReference<Map<String, Object>> MAP_TYPE =
-            new ParameterizedTypeReference<>() {
-            };
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private static final int MAX_EVENT_BYTES = 2 * 1024 * 1024;
 
     private final WebClient webClient;
     private final Duration timeout;
+    private final UpstreamGuard guard;
 
     public PlaneClient(
             @Qualifier("planeWebClient") WebClient planeWebClient,
-            @Qualifier("planeTimeout") Duration planeTimeout) {
+            @Qualifier("planeTimeout") Duration planeTimeout,
+            @Qualifier("planeGuard") UpstreamGuard planeGuard) {
         this.webClient = planeWebClient;
         this.timeout = planeTimeout;
+        this.guard = planeGuard;
     }
 
-    public Mono<Map<String, Object>> createTask(Map<String, Object> payload) {
+    public Mono<PlaneResponse> createTask(Map<String, Object> payload) {
         return webClient.post()
                 .uri("/v1/tasks")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(payload)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, this::mapError)
-                .bodyToMono(MAP_TYPE)
-                .timeout(timeout);
+                .exchangeToMono(this::toPlaneResponse)
+                .timeout(timeout)
+                .transform(guard::protect);
     }
 
-    public Mono<Map<String, Object>> getTask(String taskId) {
+    public Mono<PlaneResponse> getTask(String taskId) {
         return webClient.get()
                 .uri("/v1/tasks/{taskId}", taskId)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, this::mapError)
-                .bodyToMono(MAP_TYPE)
-                .timeout(timeout);
+                .exchangeToMono(this::toPlaneResponse)
+                .timeout(timeout)
+                .transform(guard::protect);
     }
 
-    public Mono<Map<String, Object>> cancelTask(String taskId) {
+    public Mono<PlaneResponse> cancelTask(String taskId) {
         return webClient.post()
                 .uri("/v1/tasks/{taskId}/cancel", taskId)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, this::mapError)
-                .bodyToMono(MAP_TYPE)
-                .timeout(timeout);
+                .exchangeToMono(this::toPlaneResponse)
+                .timeout(timeout)
+                .transform(guard::protect);
     }
 
-    public Flux<String> streamTaskEvents(String taskId) {
-        return webClient.get()
-                .uri("/v1/tasks/{taskId}/events", taskId)
-                .accept(MediaType.TEXT_EVENT_STREAM)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, this::mapError)
-                .bodyToFlux(String.class);
+    /**
+     * Streams the task's events as raw frames. Body buffers are copied into frames and released right away, so
+     * nothing pooled outlives this method's pipeline.
+     */
+    public Flux<SseFrame> streamTaskEvents(String taskId) {
+        return Flux.defer(() -> {
+            SseFrameDecoder decoder = new SseFrameDecoder(MAX_EVENT_BYTES);
+            return webClient.get()
+                    .uri("/v1/tasks/{taskId}/events", taskId)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError, this::mapError)
+                    .bodyToFlux(DataBuffer.class)
+                    .concatMapIterable(buffer -> {
+                        try {
+                            return decoder.decode(buffer);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    });
+        }).transform(guard::protectStream);
+    }
+
+    /**
+     * Keeps a successful body as bytes together with its status and content type; error statuses become a
+     * {@link ResponseStatusException} carrying the upstream body as reason.
+     */
+    private Mono<PlaneResponse> toPlaneResponse(ClientResponse response) {
+        if (response.statusCode().isError()) {
+            return mapError(response).flatMap(Mono::error);
+        }
+        int status = response.statusCode().value();
+        MediaType contentType = response.headers().contentType().orElse(MediaType.APPLICATION_JSON);
+        return response.bodyToMono(byte[].class)
+                .defaultIfEmpty(EMPTY_BODY)
+                .map(body -> new PlaneResponse(status, contentType, body));
     }
 
-    private Mono<? extends Throwable> mapError(org.springframework.web.reactive.function.client.ClientResponse response) {
+    private Mono<? extends Throwable> mapError(ClientResponse response) {
         return response.bodyToMono(String.class).defaultIfEmpty("plane request failed").map(message ->
                 new ResponseStatusException(response.statusCode(), message));
     }
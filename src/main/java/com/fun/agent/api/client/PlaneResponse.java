@@ -0,0 +1,19 @@
+package com.fun.agent.api.client;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Successful plane response kept as the raw body bytes, so the gateway can relay (and cache) it without decoding
+ * the JSON into an object graph and encoding it again. The array is never modified after construction.
+ */
+public record PlaneResponse(int status, MediaType contentType, byte[] body) {
+
+    public ResponseEntity<byte[]> toResponseEntity() {
+        return ResponseEntity.status(HttpStatusCode.valueOf(status))
+                .contentType(contentType)
+                .contentLength(body.length)
+                .body(body);
+    }
+}
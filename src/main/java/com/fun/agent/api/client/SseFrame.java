@@ -0,0 +1,47 @@
+package com.fun.agent.api.client;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One server-sent event exactly as the plane framed it, including the terminating blank line. Only {@code id} and
+ * {@code event} are pulled out of the frame; the {@code data} lines stay as bytes so relaying an event does not
+ * decode or re-encode its payload.
+ */
+public record SseFrame(String id, String event, byte[] bytes) {
+
+    /**
+     * Comment frame sent on idle streams to keep proxies and load balancers from closing the connection.
+     */
+    public static final SseFrame HEARTBEAT = new SseFrame(null, null, ":\n\n".getBytes(StandardCharsets.US_ASCII));
+
+    /**
+     * Copy of this frame with an {@code id:} line put in front, for upstream events that carry no id.
+     */
+    public SseFrame withId(String newId) {
+        byte[] idLine = ("id:" + newId + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] framed = new byte[idLine.length + bytes.length];
+        System.arraycopy(idLine, 0, framed, 0, idLine.length);
+        System.arraycopy(bytes, 0, framed, idLine.length, bytes.length);
+        return new SseFrame(newId, event, framed);
+    }
+
+    /**
+     * Whether the raw frame contains {@code needle}, as a cheap check before decoding it.
+     */
+    public boolean contains(byte[] needle) {
+        outer:
+        for (int i = 0; i <= bytes.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (bytes[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public String text() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
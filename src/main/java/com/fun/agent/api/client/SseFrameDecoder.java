@@ -0,0 +1,143 @@
+package com.fun.agent.api.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+/**
+ * Splits a text/event-stream byte stream into {@link SseFrame}s. Accepts LF, CR and CRLF line endings, and keeps
+ * the bytes of each frame untouched. Frames without {@code data} or {@code event} (comments, bare {@code retry})
+ * are dropped, as is an unterminated frame at the end of the stream. Not thread-safe; one instance per stream.
+ */
+final class SseFrameDecoder {
+
+    private final int maxFrameBytes;
+    private byte[] pending = new byte[1024];
+    private int pendingLength;
+    private int frameStart;
+    private int scanned;
+    private int lineStart;
+    private boolean afterCr;
+    private String id;
+    private String event;
+    private boolean hasData;
+
+    SseFrameDecoder(int maxFrameBytes) {
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    List<SseFrame> decode(DataBuffer buffer) {
+        append(buffer);
+        List<SseFrame> frames = null;
+        while (scanned < pendingLength) {
+            byte current = pending[scanned++];
+            if (afterCr && current == '\n') {
+                afterCr = false;
+                if (scanned == frameStart + 1) {
+                    // LF of a CRLF that ended the previous frame
+                    startNextFrame();
+                } else {
+                    lineStart = scanned;
+                }
+                continue;
+            }
+            afterCr = current == '\r';
+            if (current != '\n' && current != '\r') {
+                continue;
+            }
+            int lineEnd = scanned - 1;
+            if (lineEnd > lineStart) {
+                readField(lineStart, lineEnd);
+                lineStart = scanned;
+                continue;
+            }
+            if (hasData || event != null) {
+                if (frames == null) {
+                    frames = new ArrayList<>(2);
+                }
+                frames.add(new SseFrame(id, event, Arrays.copyOfRange(pending, frameStart, scanned)));
+            }
+            startNextFrame();
+        }
+        compact();
+        if (pendingLength > maxFrameBytes) {
+            throw new DataBufferLimitException("server-sent event exceeds " + maxFrameBytes + " bytes");
+        }
+        return frames == null ? List.of() : frames;
+    }
+
+    private void append(DataBuffer buffer) {
+        int readable = buffer.readableByteCount();
+        if (pendingLength + readable > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + readable));
+        }
+        buffer.read(pending, pendingLength, readable);
+        pendingLength += readable;
+    }
+
+    private void readField(int start, int end) {
+        if (matches(start, end, "data")) {
+            hasData = true;
+        } else if (matches(start, end, "event")) {
+            event = value(start + 5, end);
+        } else if (matches(start, end, "id")) {
+            String value = value(start + 2, end);
+            if (value.indexOf('\0') < 0) {
+                id = value;
+            }
+        }
+    }
+
+    /**
+     * Whether the line holds field {@code name}: the name followed by a colon or by nothing at all.
+     */
+    private boolean matches(int start, int end, String name) {
+        int length = name.length();
+        if (end - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (pending[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return end - start == length || pending[start + length] == ':';
+    }
+
+    private String value(int afterName, int end) {
+        int start = afterName;
+        if (start < end && pending[start] == ':') {
+            start++;
+        }
+        if (start < end && pending[start] == ' ') {
+            start++;
+        }
+        return new String(pending, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private void startNextFrame() {
+        frameStart = scanned;
+        lineStart = scanned;
+        id = null;
+        event = null;
+        hasData = false;
+    }
+
+    /**
+     * Moves the unfinished frame to the front of {@code pending}, once per decoded buffer rather than once per frame.
+     */
+    private void compact() {
+        if (frameStart == 0) {
+            return;
+        }
+        int remaining = pendingLength - frameStart;
+        System.arraycopy(pending, frameStart, pending, 0, remaining);
+        pendingLength = remaining;
+        scanned -= frameStart;
+        lineStart -= frameStart;
+        frameStart = 0;
+    }
+}
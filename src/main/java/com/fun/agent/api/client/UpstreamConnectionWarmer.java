@@ -0,0 +1,74 @@
+package com.fun.agent.api.client;
+
+import com.fun.agent.api.config.GatewayProperties;
+import com.fun.agent.api.config.PlaneProperties;
+import com.fun.agent.api.config.UpstreamPoolProperties;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Opens connections to each upstream once the application is ready, so the first requests after a deploy find
+ * TCP and TLS already set up in the pool. Requests run concurrently to force distinct connections; the response
+ * status is irrelevant and failures are only logged.
+ */
+@Component
+public class UpstreamConnectionWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamConnectionWarmer.class);
+
+    private final WebClient planeWebClient;
+    private final WebClient gatewayWebClient;
+    private final PlaneProperties planeProperties;
+    private final GatewayProperties gatewayProperties;
+
+    public UpstreamConnectionWarmer(
+            @Qualifier("planeWebClient") WebClient planeWebClient,
+            @Qualifier("gatewayWebClient") WebClient gatewayWebClient,
+            PlaneProperties planeProperties,
+            GatewayProperties gatewayProperties) {
+        this.planeWebClient = planeWebClient;
+        this.gatewayWebClient = gatewayWebClient;
+        this.planeProperties = planeProperties;
+        this.gatewayProperties = gatewayProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        warmUp("plane", planeWebClient, planeProperties.pool(), planeProperties.timeoutSeconds());
+        warmUp("model-gateway", gatewayWebClient, gatewayProperties.pool(), gatewayProperties.timeoutSeconds());
+    }
+
+    private void warmUp(String name, WebClient webClient, UpstreamPoolProperties pool, int timeoutSeconds) {
+        int connections = Math.min(pool.warmupConnections(), Math.max(1, pool.maxConnections()));
+        if (connections <= 0) {
+            return;
+        }
+        String path = pool.warmupPath() == null ? "" : pool.warmupPath();
+        long startNanos = System.nanoTime();
+        Flux.range(0, connections)
+                .flatMap(ignored -> webClient.head()
+                        .uri(path)
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(true))
+                        .timeout(Duration.ofSeconds(Math.max(1, timeoutSeconds)))
+                        .onErrorResume(error -> {
+                            log.debug("{} warm-up request failed: {}", name, error.getMessage());
+                            return Mono.just(false);
+                        }), connections)
+                .filter(Boolean::booleanValue)
+                .count()
+                .subscribe(opened -> log.info(
+                        "{} warm-up: {}/{} requests answered in {} ms",
+                        name,
+                        opened,
+                        connections,
+                        Duration.ofNanos(System.nanoTime() - startNanos).toMillis()));
+    }
+}
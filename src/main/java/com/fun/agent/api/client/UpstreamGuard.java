@@ -0,0 +1,296 @@
+package com.fun.agent.api.client;
+
+import com.fun.agent.api.config.UpstreamGuardProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sheds load in front of one upstream with two mechanisms:
+ *
+ * <ul>
+ *   <li>an AIMD concurrency limit: each fast, successful call grows the limit by {@code 1/limit}, and a call
+ *       slower than {@code latencyThresholdMillis} or failing multiplies it by {@code backoffRatio}. The limit
+ *       backs off at most once per {@code latencyThresholdMillis}, so a burst of slow or failed calls counts as
+ *       one congestion signal rather than one per call. Calls beyond the limit are rejected immediately instead
+ *       of queueing behind a slow upstream;</li>
+ *   <li>a circuit breaker over the last {@code failureWindow} calls that opens once the failure ratio crosses
+ *       {@code failureRateThreshold}, rejects everything for {@code openSeconds}, then lets
+ *       {@code halfOpenProbes} trial calls decide whether to close again.</li>
+ * </ul>
+ *
+ * <p>Server errors, timeouts and connection failures count as failures; 4xx responses do not.
+ */
+public class UpstreamGuard {
+
+    public enum CircuitState {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String name;
+    private final UpstreamGuardProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger halfOpenInFlight = new AtomicInteger();
+    private final boolean[] outcomes;
+    private final Counter rejectedByLimit;
+    private final Counter rejectedByCircuit;
+
+    private volatile double limit;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+    private volatile CircuitState state = CircuitState.CLOSED;
+    private volatile long openUntilNanos;
+    private int outcomeIndex;
+    private int outcomeCount;
+    private int failureCount;
+
+    public UpstreamGuard(String name, UpstreamGuardProperties properties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.properties = properties;
+        this.limit = clampLimit(properties.initialLimit());
+        this.outcomes = new boolean[Math.max(1, properties.failureWindow())];
+        this.rejectedByLimit = Counter.builder("upstream.rejected")
+                .tag("upstream", name)
+                .tag("reason", "concurrency_limit")
+                .register(meterRegistry);
+        this.rejectedByCircuit = Counter.builder("upstream.rejected")
+                .tag("upstream", name)
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        Gauge.builder("upstream.concurrency.limit", this, UpstreamGuard::limit)
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("upstream.inflight", inFlight, AtomicInteger::get)
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("upstream.circuit.state", this, guard -> guard.state().ordinal())
+                .tag("upstream", name)
+                .description("0 = closed, 1 = half open, 2 = open")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        if (!properties.enabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            Permit permit = acquire();
+            return call
+                    .doOnSuccess(ignored -> permit.complete(null))
+                    .doOnError(permit::complete)
+                    .doOnCancel(permit::abandon);
+        });
+    }
+
+    /**
+     * Long-lived streams only go through the breaker: a stream that fails before its first element counts as a
+     * failure, and a first element counts as a success. They do not occupy a concurrency slot.
+     */
+    public <T> Flux<T> protectStream(Flux<T> stream) {
+        if (!properties.enabled()) {
+            return stream;
+        }
+        return Flux.defer(() -> {
+            boolean probe = admitThroughCircuit();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return stream
+                    .doOnNext(ignored -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            recordOutcome(true, probe);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            recordOutcome(!isFailure(error), probe);
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (recorded.compareAndSet(false, true) && probe) {
+                            halfOpenInFlight.decrementAndGet();
+                        }
+                    });
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public double limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public CircuitState state() {
+        if (state == CircuitState.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            return CircuitState.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", properties.enabled());
+        description.put("circuitState", state().name());
+        description.put("concurrencyLimit", (int) limit);
+        description.put("inFlight", inFlight.get());
+        synchronized (outcomes) {
+            description.put("windowCalls", outcomeCount);
+            description.put("windowFailures", failureCount);
+        }
+        description.put("rejectedByLimit", (long) rejectedByLimit.count());
+        description.put("rejectedByCircuit", (long) rejectedByCircuit.count());
+        return description;
+    }
+
+    private Permit acquire() {
+        boolean probe = admitThroughCircuit();
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            if (probe) {
+                halfOpenInFlight.decrementAndGet();
+            }
+            rejectedByLimit.increment();
+            throw new UpstreamUnavailableException(name + " concurrency limit reached", 1);
+        }
+        return new Permit(probe, System.nanoTime());
+    }
+
+    /**
+     * Returns whether the call is a half-open probe, or throws when the circuit rejects it.
+     */
+    private boolean admitThroughCircuit() {
+        CircuitState current = state();
+        if (current == CircuitState.CLOSED) {
+            return false;
+        }
+        if (current == CircuitState.HALF_OPEN) {
+            if (halfOpenInFlight.incrementAndGet() <= Math.max(1, properties.halfOpenProbes())) {
+                return true;
+            }
+            halfOpenInFlight.decrementAndGet();
+        }
+        rejectedByCircuit.increment();
+        long retryAfterNanos = Math.max(0, openUntilNanos - System.nanoTime());
+        throw new UpstreamUnavailableException(
+                name + " is unavailable (circuit open)",
+                TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + 1);
+    }
+
+    private void onCallFinished(boolean success, long latencyNanos, boolean probe) {
+        inFlight.decrementAndGet();
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.latencyThresholdMillis()));
+        boolean fast = latencyNanos <= thresholdNanos;
+        synchronized (this) {
+            double current = limit;
+            if (success && fast) {
+                limit = clampLimit(current + 1.0 / current);
+            } else {
+                long now = System.nanoTime();
+                if (!decreased || now - lastDecreaseNanos >= thresholdNanos) {
+                    limit = clampLimit(current * properties.backoffRatio());
+                    lastDecreaseNanos = now;
+                    decreased = true;
+                }
+            }
+        }
+        recordOutcome(success, probe);
+    }
+
+    private void recordOutcome(boolean success, boolean probe) {
+        if (probe) {
+            halfOpenInFlight.decrementAndGet();
+            if (success) {
+                closeCircuit();
+            } else {
+                openCircuit();
+            }
+            return;
+        }
+        boolean open;
+        synchronized (outcomes) {
+            if (outcomeCount == outcomes.length && !outcomes[outcomeIndex]) {
+                failureCount--;
+            }
+            outcomes[outcomeIndex] = success;
+            if (!success) {
+                failureCount++;
+            }
+            outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+            outcomeCount = Math.min(outcomes.length, outcomeCount + 1);
+            open = outcomeCount >= Math.max(1, properties.minimumCalls())
+                    && failureCount >= properties.failureRateThreshold() * outcomeCount;
+        }
+        if (open && state == CircuitState.CLOSED) {
+            openCircuit();
+        }
+    }
+
+    private void openCircuit() {
+        openUntilNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, properties.openSeconds()));
+        state = CircuitState.OPEN;
+    }
+
+    private void closeCircuit() {
+        synchronized (outcomes) {
+            outcomeIndex = 0;
+            outcomeCount = 0;
+            failureCount = 0;
+        }
+        state = CircuitState.CLOSED;
+    }
+
+    private double clampLimit(double value) {
+        int min = Math.max(1, properties.minLimit());
+        int max = Math.max(min, properties.maxLimit());
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static boolean isFailure(Throwable error) {
+        if (error instanceof ResponseStatusException statusException) {
+            return statusException.getStatusCode().is5xxServerError();
+        }
+        return true;
+    }
+
+    private final class Permit {
+
+        private final boolean probe;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(boolean probe, long startNanos) {
+            this.probe = probe;
+            this.startNanos = startNanos;
+        }
+
+        private void complete(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                boolean success = error == null || !isFailure(error);
+                onCallFinished(success, System.nanoTime() - startNanos, probe);
+            }
+        }
+
+        private void abandon() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                if (probe) {
+                    halfOpenInFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
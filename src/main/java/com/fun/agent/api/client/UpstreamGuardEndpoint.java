@@ -0,0 +1,31 @@
+package com.fun.agent.api.client;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes concurrency limit and circuit breaker state of every upstream at {@code /actuator/upstreams}.
+ */
+@Component
+@Endpoint(id = "upstreams")
+public class UpstreamGuardEndpoint {
+
+    private final List<UpstreamGuard> guards;
+
+    public UpstreamGuardEndpoint(List<UpstreamGuard> guards) {
+        this.guards = guards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> upstreams() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (UpstreamGuard guard : guards) {
+            result.put(guard.name(), guard.describe());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package com.fun.agent.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.agent-config")
+public record AgentConfigProperties(
+        boolean snapshotEnabled,
+        boolean changeListenEnabled,
+        String changeChannel,
+        int changePollMillis,
+        int changeReconnectSeconds,
+        boolean responseGzipEnabled,
+        String readMode,
+        int exportFetchSize,
+        int exportMaxConcurrency,
+        String offloadMode,
+        int offloadThreads,
+        int offloadMaxConcurrency,
+        int offloadQueueCapacity,
+        String store,
+        String r2dbcUrl,
+        int r2dbcPoolMaxSize) {
+}
@@ -0,0 +1,128 @@
+package com.fun.agent.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fun.agent.api.repository.AgentConfigChangeFeed;
+import com.fun.agent.api.repository.AgentConfigJdbcStore;
+import com.fun.agent.api.repository.AgentConfigJsonReader;
+import com.fun.agent.api.repository.AgentConfigOffloadingStore;
+import com.fun.agent.api.repository.AgentConfigR2dbcStore;
+import com.fun.agent.api.repository.AgentConfigReader;
+import com.fun.agent.api.repository.AgentConfigStore;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import reactor.core.scheduler.Scheduler;
+
+@Configuration
+public class AgentConfigStoreConfig {
+
+    /**
+     * PgJDBC URL parameters and their r2dbc-postgresql names.
+     */
+    private static final Map<String, String> R2DBC_PARAMETER_NAMES = Map.of(
+            "sslmode", "sslMode",
+            "sslrootcert", "sslRootCert",
+            "sslcert", "sslCert",
+            "sslkey", "sslKey",
+            "sslpassword", "sslPassword",
+            "currentSchema", "schema",
+            "ApplicationName", "applicationName",
+            "options", "options");
+
+    @Bean
+    @Primary
+    public AgentConfigReader agentConfigReader(
+            AgentConfigProperties properties,
+            AgentConfigJdbcStore jdbcStore,
+            AgentConfigJsonReader jsonReader) {
+        String mode = properties.readMode() == null ? "rows" : properties.readMode().trim().toLowerCase();
+        return switch (mode) {
+            case "rows" -> jdbcStore;
+            case "json" -> jsonReader;
+            default -> throw new IllegalArgumentException("app.agent-config.read-mode must be rows or json");
+        };
+    }
+
+    @Bean
+    public AgentConfigStore agentConfigStore(
+            AgentConfigProperties properties,
+            AgentConfigJdbcStore jdbcStore,
+            AgentConfigReader agentConfigReader,
+            @Qualifier("jdbcScheduler") Scheduler jdbcScheduler,
+            DataSourceProperties dataSourceProperties,
+            AgentConfigChangeFeed changeFeed,
+            ObjectMapper objectMapper) {
+        String mode = properties.store() == null ? "jdbc" : properties.store().trim().toLowerCase();
+        return switch (mode) {
+            case "jdbc" -> new AgentConfigOffloadingStore(jdbcStore, agentConfigReader, jdbcScheduler);
+            case "r2dbc" -> new AgentConfigR2dbcStore(
+                    r2dbcConnectionPool(properties, dataSourceProperties), changeFeed, objectMapper);
+            default -> throw new IllegalArgumentException("app.agent-config.store must be jdbc or r2dbc");
+        };
+    }
+
+    /**
+     * Pooled R2DBC connections owned by the {@code r2dbc} store. Without {@code app.agent-config.r2dbc-url} the
+     * JDBC URL and credentials are reused, so both stores point at the same database; Flyway keeps running over
+     * JDBC at startup either way. Deliberately not a bean: Boot skips its DataSource as soon as a
+     * {@code ConnectionFactory} bean exists.
+     */
+    private static ConnectionPool r2dbcConnectionPool(
+            AgentConfigProperties properties,
+            DataSourceProperties dataSourceProperties) {
+        String url = properties.r2dbcUrl() == null || properties.r2dbcUrl().isBlank()
+                ? r2dbcUrlOf(dataSourceProperties.getUrl())
+                : properties.r2dbcUrl().trim();
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (dataSourceProperties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, dataSourceProperties.getUsername());
+        }
+        if (dataSourceProperties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.getPassword());
+        }
+        int maxSize = Math.max(1, properties.r2dbcPoolMaxSize());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("agent-config-r2dbc")
+                .initialSize(Math.min(2, maxSize))
+                .maxSize(maxSize)
+                .build());
+    }
+
+    /**
+     * {@code jdbc:postgresql://host:port/db?...} to {@code r2dbc:postgresql://host:port/db?...}. PgJDBC parameters
+     * that r2dbc-postgresql understands under another name are renamed; any other parameter fails startup, since
+     * dropping it could silently change the connection (for example lose TLS), and then
+     * {@code app.agent-config.r2dbc-url} has to be set explicitly.
+     */
+    static String r2dbcUrlOf(String jdbcUrl) {
+        int query = jdbcUrl.indexOf('?');
+        String base = (query < 0 ? jdbcUrl : jdbcUrl.substring(0, query)).replaceFirst("^jdbc:", "r2dbc:");
+        if (query < 0 || query == jdbcUrl.length() - 1) {
+            return base;
+        }
+        StringBuilder url = new StringBuilder(base);
+        char separator = '?';
+        for (String parameter : jdbcUrl.substring(query + 1).split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String r2dbcName = R2DBC_PARAMETER_NAMES.get(name);
+            if (r2dbcName == null) {
+                throw new IllegalArgumentException("JDBC URL parameter '" + name + "' has no R2DBC equivalent;"
+                        + " set app.agent-config.r2dbc-url (AGENT_CONFIG_R2DBC_URL) for the r2dbc store");
+            }
+            url.append(separator).append(r2dbcName).append(equals < 0 ? "" : parameter.substring(equals));
+            separator = '&';
+        }
+        return url.toString();
+    }
+}
@@ -7,5 +7,8 @@ public record GatewayProperties(
         String baseUrl,
         String token,
         int timeoutSeconds,
-        int modelsCacheSeconds) {
+        int modelsCacheSeconds,
+        int modelsMaxStaleSeconds,
+        UpstreamGuardProperties guard,
+        UpstreamPoolProperties pool) {
 }
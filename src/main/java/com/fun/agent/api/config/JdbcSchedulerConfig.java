@@ -0,0 +1,70 @@
+package com.fun.agent.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class JdbcSchedulerConfig {
+
+    /**
+     * Scheduler that blocking agent config JDBC work is offloaded onto, picked by
+     * {@code app.agent-config.offload-mode}:
+     * <ul>
+     *     <li>{@code pool}: a bounded platform thread pool of {@code offload-threads}, also published as
+     *     {@code executor.*} meters tagged {@code name=agent-config-jdbc}.</li>
+     *     <li>{@code virtual}: one virtual thread per task (Java 21+), with {@code offload-max-concurrency} tasks on
+     *     the database at once; the rest park cheaply instead of holding a platform thread.</li>
+     * </ul>
+     * Either way work beyond the Hikari pool size would only wait for a connection, so both limits default to
+     * {@code DB_POOL_MAX_SIZE}, and at most {@code offload-queue-capacity} tasks wait before new ones get {@code 503}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(AgentConfigProperties properties, MeterRegistry meterRegistry) {
+        String mode = properties.offloadMode() == null ? "pool" : properties.offloadMode().trim().toLowerCase();
+        int queueCapacity = Math.max(1, properties.offloadQueueCapacity());
+        return switch (mode) {
+            case "pool" -> poolScheduler(Math.max(1, properties.offloadThreads()), queueCapacity, meterRegistry);
+            case "virtual" -> virtualScheduler(
+                    Math.max(1, properties.offloadMaxConcurrency()), queueCapacity, meterRegistry);
+            default -> throw new IllegalArgumentException("app.agent-config.offload-mode must be pool or virtual");
+        };
+    }
+
+    private static Scheduler poolScheduler(int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("agent-config-jdbc-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "agent-config-jdbc");
+        MeteredOffloadExecutor metered =
+                new MeteredOffloadExecutor(monitored, threads, queueCapacity, "pool", meterRegistry);
+        return Schedulers.fromExecutorService(metered, "agent-config-jdbc");
+    }
+
+    private static Scheduler virtualScheduler(int maxConcurrency, int queueCapacity, MeterRegistry meterRegistry) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException(
+                    "app.agent-config.offload-mode=virtual needs Java 21+, running on " + Runtime.version());
+        }
+        VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("agent-config-jdbc-");
+        MeteredOffloadExecutor metered =
+                new MeteredOffloadExecutor(executor, maxConcurrency, queueCapacity, "virtual", meterRegistry);
+        return Schedulers.fromExecutorService(metered, "agent-config-jdbc");
+    }
+}
@@ -0,0 +1,133 @@
+package com.fun.agent.api.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs offloaded JDBC work on {@code delegate} with at most {@code maxConcurrency} tasks touching the database at
+ * once and at most {@code maxWaiting} waiting for their turn; beyond that {@link #execute} rejects, which the API
+ * answers with {@code 503}. Wait and run time, active and waiting tasks are published as
+ * {@code agent.config.offload.*} tagged with the offload {@code mode}, so pool and virtual threads compare directly.
+ * Shutdown is passed on when the delegate is an {@link ExecutorService}.
+ */
+final class MeteredOffloadExecutor extends AbstractExecutorService {
+
+    private final Executor delegate;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private volatile boolean shutdown;
+
+    MeteredOffloadExecutor(
+            Executor delegate,
+            int maxConcurrency,
+            int maxWaiting,
+            String mode,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.maxWaiting = Math.max(1, maxWaiting);
+        this.waitTimer = Timer.builder("agent.config.offload.wait")
+                .description("Time agent config JDBC work waited before it started")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("agent.config.offload.run")
+                .description("Time agent config JDBC work ran")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("agent.config.offload.active", active, AtomicInteger::get)
+                .description("Agent config JDBC tasks running")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        Gauge.builder("agent.config.offload.waiting", waiting, AtomicInteger::get)
+                .description("Agent config JDBC tasks waiting to start")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("agent config offload executor is shut down");
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new RejectedExecutionException("agent config offload queue is full");
+        }
+        long submittedAt = System.nanoTime();
+        try {
+            delegate.execute(() -> run(task, submittedAt));
+        } catch (RuntimeException exception) {
+            waiting.decrementAndGet();
+            throw exception;
+        }
+    }
+
+    private void run(Runnable task, long submittedAt) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException interrupted) {
+            waiting.decrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        waiting.decrementAndGet();
+        active.incrementAndGet();
+        long startedAt = System.nanoTime();
+        waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+        try {
+            task.run();
+        } finally {
+            runTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (delegate instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return delegate instanceof ExecutorService executorService ? executorService.shutdownNow() : List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate instanceof ExecutorService executorService
+                ? executorService.isTerminated()
+                : shutdown && active.get() == 0 && waiting.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate instanceof ExecutorService executorService
+                ? executorService.awaitTermination(timeout, unit)
+                : isTerminated();
+    }
+}
@@ -3,6 +3,24 @@ package com.fun.agent.api.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "plane")
-public record PlaneProperties(String baseUrl, int timeoutSeconds) {
+public record PlaneProperties(
+        String baseUrl,
+        int timeoutSeconds,
+        int batchConcurrency,
+        int batchMaxSize,
+        int idempotencyTtlSeconds,
+        int idempotencyMaxEntries,
+        int eventsReplaySize,
+        int eventsBufferTtlSeconds,
+        long eventsBufferMaxBytes,
+        int eventsHeartbeatSeconds,
+        int eventsUpstreamGraceSeconds,
+        int statusCacheRunningTtlMillis,
+        int statusCacheTerminalTtlSeconds,
+        int statusCacheMaxEntries,
+        boolean resolveSkillPrompts,
+        boolean validateTaskTargets,
+        UpstreamGuardProperties guard,
+        UpstreamPoolProperties pool) {
 }
 
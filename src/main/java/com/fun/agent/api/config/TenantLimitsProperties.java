@@ -0,0 +1,25 @@
+package com.fun.agent.api.config;
+
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.tenant-limits")
+public record TenantLimitsProperties(
+        boolean enabled,
+        Limit defaults,
+        Map<String, Limit> tenants) {
+
+    public Limit limitFor(String tenantId) {
+        Limit override = tenants == null ? null : tenants.get(tenantId);
+        if (override != null) {
+            return override;
+        }
+        return defaults == null ? new Limit(0, 0, 0) : defaults;
+    }
+
+    /**
+     * A {@code ratePerSecond} or {@code maxInFlight} of zero or less disables that limit.
+     */
+    public record Limit(double ratePerSecond, int burst, int maxInFlight) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.fun.agent.api.config;
+
+import com.fun.agent.api.client.UpstreamGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UpstreamGuardConfig {
+
+    @Bean
+    public UpstreamGuard planeGuard(PlaneProperties planeProperties, MeterRegistry meterRegistry) {
+        return new UpstreamGuard("plane", planeProperties.guard(), meterRegistry);
+    }
+
+    @Bean
+    public UpstreamGuard gatewayGuard(GatewayProperties gatewayProperties, MeterRegistry meterRegistry) {
+        return new UpstreamGuard("model-gateway", gatewayProperties.guard(), meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.fun.agent.api.config;
+
+/**
+ * Adaptive concurrency limit and circuit breaker settings for one upstream.
+ *
+ * @param latencyThresholdMillis calls slower than this shrink the concurrency limit, at most once per this interval
+ * @param backoffRatio           factor applied to the limit on a slow or failed call
+ * @param failureWindow          number of most recent calls the breaker looks at
+ * @param failureRateThreshold   failure ratio (0..1) within the window that opens the breaker
+ * @param minimumCalls           calls needed in the window before the breaker may open
+ * @param openSeconds            how long the breaker stays open before letting probes through
+ * @param halfOpenProbes         concurrent trial calls allowed while half open
+ */
+public record UpstreamGuardProperties(
+        boolean enabled,
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        long latencyThresholdMillis,
+        double backoffRatio,
+        int failureWindow,
+        double failureRateThreshold,
+        int minimumCalls,
+        int openSeconds,
+        int halfOpenProbes) {
+}
@@ -0,0 +1,28 @@
+package com.fun.agent.api.config;
+
+/**
+ * Reactor Netty connection pool settings for one upstream.
+ *
+ * @param maxConnections              connections the pool may open to the upstream
+ * @param pendingAcquireMaxCount      requests allowed to wait for a connection before failing fast
+ * @param pendingAcquireTimeoutMillis how long a request waits for a connection
+ * @param maxIdleTimeSeconds          idle connections older than this are closed
+ * @param maxLifeTimeSeconds          connections older than this are closed once released
+ * @param evictInBackgroundSeconds    interval of the background eviction sweep, {@code 0} to evict only on acquire
+ * @param connectTimeoutMillis        TCP connect timeout
+ * @param http2                       negotiate HTTP/2 (h2 over TLS, h2c upgrade otherwise), falling back to HTTP/1.1
+ * @param warmupConnections           concurrent requests sent at startup to pre-open connections, {@code 0} to skip
+ * @param warmupPath                  path requested with {@code HEAD} during warm-up; any response status is fine
+ */
+public record UpstreamPoolProperties(
+        int maxConnections,
+        int pendingAcquireMaxCount,
+        long pendingAcquireTimeoutMillis,
+        int maxIdleTimeSeconds,
+        int maxLifeTimeSeconds,
+        int evictInBackgroundSeconds,
+        int connectTimeoutMillis,
+        boolean http2,
+        int warmupConnections,
+        String warmupPath) {
+}
@@ -1,25 +1,50 @@
 package com.fun.agent.api.config;
 
+import io.netty.channel.ChannelOption;
 import java.time.Duration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider planeConnectionProvider(PlaneProperties planeProperties) {
+        return connectionProvider("plane", planeProperties.pool());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider gatewayConnectionProvider(GatewayProperties gatewayProperties) {
+        return connectionProvider("model-gateway", gatewayProperties.pool());
+    }
+
     @Bean
-    public WebClient planeWebClient(WebClient.Builder builder, PlaneProperties planeProperties) {
+    public WebClient planeWebClient(
+            WebClient.Builder builder,
+            PlaneProperties planeProperties,
+            ConnectionProvider planeConnectionProvider) {
+        HttpClient httpClient = httpClient(planeConnectionProvider, planeProperties.baseUrl(), planeProperties.pool());
         return builder
                 .baseUrl(planeProperties.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024))
                 .build();
     }
 
     @Bean
-    public WebClient gatewayWebClient(WebClient.Builder builder, GatewayProperties gatewayProperties) {
+    public WebClient gatewayWebClient(
+            WebClient.Builder builder,
+            GatewayProperties gatewayProperties,
+            ConnectionProvider gatewayConnectionProvider) {
+        HttpClient httpClient = httpClient(gatewayConnectionProvider, gatewayProperties.baseUrl(), gatewayProperties.pool());
         return builder
                 .baseUrl(gatewayProperties.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024))
                 .build();
     }
@@ -33,4 +58,32 @@ public class WebClientConfig {
     public Duration gatewayTimeout(GatewayProperties gatewayProperties) {
         return Duration.ofSeconds(gatewayProperties.timeoutSeconds());
     }
+
+    /**
+     * One pool per upstream, so a slow upstream cannot exhaust connections the other one needs. Pool gauges are
+     * published as {@code reactor.netty.connection.provider.*} tagged with the pool name.
+     */
+    private static ConnectionProvider connectionProvider(String name, UpstreamPoolProperties pool) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(name)
+                .maxConnections(Math.max(1, pool.maxConnections()))
+                .pendingAcquireMaxCount(Math.max(1, pool.pendingAcquireMaxCount()))
+                .pendingAcquireTimeout(Duration.ofMillis(Math.max(1, pool.pendingAcquireTimeoutMillis())))
+                .maxIdleTime(Duration.ofSeconds(Math.max(1, pool.maxIdleTimeSeconds())))
+                .maxLifeTime(Duration.ofSeconds(Math.max(1, pool.maxLifeTimeSeconds())))
+                .metrics(true);
+        if (pool.evictInBackgroundSeconds() > 0) {
+            builder.evictInBackground(Duration.ofSeconds(pool.evictInBackgroundSeconds()));
+        }
+        return builder.build();
+    }
+
+    private static HttpClient httpClient(ConnectionProvider provider, String baseUrl, UpstreamPoolProperties pool) {
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.max(1, pool.connectTimeoutMillis()));
+        if (pool.http2()) {
+            boolean tls = baseUrl != null && baseUrl.startsWith("https:");
+            httpClient = httpClient.protocol(tls ? HttpProtocol.H2 : HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
 }
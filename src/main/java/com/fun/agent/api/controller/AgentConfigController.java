@@ -1,26 +1,39 @@
 package com.fun.agent.api.controller;
 
+import com.fun.agent.api.model.config.AgentConfigPayload;
 import com.fun.agent.api.model.config.AgentConfigsResponse;
 import com.fun.agent.api.model.config.ReplaceAgentConfigsRequest;
 import com.fun.agent.api.model.config.SkillConfigPayload;
 import com.fun.agent.api.model.config.SkillPromptVariantPayload;
 import com.fun.agent.api.model.config.UpdateSkillPromptRequest;
 import com.fun.agent.api.model.config.UpdateSkillVariantPromptRequest;
+import com.fun.agent.api.service.AgentConfigDocument;
 import com.fun.agent.api.service.AgentConfigService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping({"/api/v1/config", "/v1/config"})
 public class AgentConfigController {
 
+    private static final String AGENT_ETAG_PREFIX = "agent-";
+
     private final AgentConfigService agentConfigService;
 
     public AgentConfigController(AgentConfigService agentConfigService) {
@@ -28,29 +41,76 @@ public class AgentConfigController {
     }
 
     @GetMapping("/agents")
-    public Mono<AgentConfigsResponse> listAgents() {
+    public Mono<ResponseEntity<?>> listAgents(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (status != null || owner != null || cursor != null || limit != null) {
+            return agentConfigService
+                    .findAgentConfigs(status, owner, cursor, limit)
+                    .map(ResponseEntity::ok);
+        }
         return agentConfigService
-                .listAgentConfigs()
-                .map(AgentConfigsResponse::new);
+                .currentDocument()
+                .map(document -> renderDocument(document, ifNoneMatch, acceptEncoding));
+    }
+
+    @GetMapping(value = "/export/agents", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<byte[]> exportAgents() {
+        return agentConfigService.exportAgentConfigs();
+    }
+
+    /**
+     * Carries the agent's revision as {@code ETag}, to be sent back as {@code If-Match} on the skill and variant
+     * writes of that agent.
+     */
+    @GetMapping("/agents/{agentId}")
+    public Mono<ResponseEntity<AgentConfigPayload>> getAgent(@PathVariable String agentId) {
+        return agentConfigService.getAgentConfig(agentId).map(agent -> {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (agent.revision() != null) {
+                builder.eTag(revisionEtag(AGENT_ETAG_PREFIX, agent.revision()));
+            }
+            return builder.body(agent);
+        });
     }
 
+    /**
+     * {@code If-Match} takes the {@code ETag} of {@code GET /agents} (the global config revision); the replace is
+     * refused with {@code 409} when any config write committed since, and with {@code 412} when the tag is an agent's.
+     */
     @PutMapping("/agents")
-    public Mono<AgentConfigsResponse> replaceAgents(@Valid @RequestBody ReplaceAgentConfigsRequest request) {
-        return agentConfigService
-                .replaceAll(request.safeAgents())
-                .map(AgentConfigsResponse::new);
+    public Mono<ResponseEntity<AgentConfigsResponse>> replaceAgents(
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody ReplaceAgentConfigsRequest request) {
+        return Mono.defer(() -> agentConfigService.replaceAll(
+                        request.safeAgents(),
+                        parseIfMatch(ifMatch, AgentConfigDocument.ETAG_PREFIX)))
+                .map(snapshot -> ResponseEntity.ok()
+                        .eTag(revisionEtag(AgentConfigDocument.ETAG_PREFIX, snapshot.revision()))
+                        .body(new AgentConfigsResponse(snapshot.agents())));
     }
 
+    /**
+     * The skill and variant writes take the agent's {@code ETag} from {@code GET /agents/{agentId}} as
+     * {@code If-Match} and are refused with {@code 409} when the agent changed since, and with {@code 412} when the
+     * tag is the global one.
+     */
     @PutMapping("/agents/{agentId}/skills/{skillId}")
     public Mono<SkillConfigPayload> updateSkillPrompt(
             @PathVariable String agentId,
             @PathVariable String skillId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateSkillPromptRequest request) {
-        return agentConfigService.updateSkillPrompt(
+        return Mono.defer(() -> agentConfigService.updateSkillPrompt(
                 agentId,
                 skillId,
                 request.name(),
-                request.promptTemplate());
+                request.promptTemplate(),
+                parseIfMatch(ifMatch, AGENT_ETAG_PREFIX)));
     }
 
     @PutMapping("/agents/{agentId}/skills/{skillId}/variants/{variantKey}")
@@ -58,19 +118,115 @@ public class AgentConfigController {
             @PathVariable String agentId,
             @PathVariable String skillId,
             @PathVariable String variantKey,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateSkillVariantPromptRequest request) {
-        return agentConfigService.upsertSkillPromptVariant(
+        return Mono.defer(() -> agentConfigService.upsertSkillPromptVariant(
                 agentId,
                 skillId,
                 variantKey,
-                request.promptTemplate());
+                request.promptTemplate(),
+                parseIfMatch(ifMatch, AGENT_ETAG_PREFIX)));
     }
 
     @DeleteMapping("/agents/{agentId}/skills/{skillId}/variants/{variantKey}")
     public Mono<Void> deleteSkillPromptVariant(
             @PathVariable String agentId,
             @PathVariable String skillId,
-            @PathVariable String variantKey) {
-        return agentConfigService.deleteSkillPromptVariant(agentId, skillId, variantKey);
+            @PathVariable String variantKey,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> agentConfigService.deleteSkillPromptVariant(
+                agentId,
+                skillId,
+                variantKey,
+                parseIfMatch(ifMatch, AGENT_ETAG_PREFIX)));
+    }
+
+    private ResponseEntity<byte[]> renderDocument(
+            AgentConfigDocument document,
+            String ifNoneMatch,
+            String acceptEncoding) {
+        boolean gzip = document.hasGzip() && acceptsGzip(acceptEncoding);
+        String etag = gzip ? document.gzipEtag() : document.etag();
+        if (matchesAny(ifNoneMatch, document)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.gzip());
+        }
+        return builder.body(document.json());
+    }
+
+    private boolean matchesAny(String ifNoneMatch, AgentConfigDocument document) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(document.etag()) || tag.equals(document.gzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String revisionEtag(String prefix, long revision) {
+        return "\"" + prefix + revision + "\"";
+    }
+
+    /**
+     * The revision named by a single strong revision ETag of the kind {@code prefix} stands for ({@code "cfg-42"},
+     * or {@code "cfg-42-gzip"} as served for the compressed document, and {@code "agent-42"}), or {@code null} when
+     * the header is absent or {@code *}. A well-formed tag of another kind fails with {@code 412}, since its number
+     * counts something else.
+     */
+    private static Long parseIfMatch(String ifMatch, String prefix) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String example = "\"" + prefix + "42\"";
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"") || tag.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("If-Match must be a single revision ETag such as " + example);
+        }
+        tag = tag.substring(1, tag.length() - 1);
+        if (!tag.startsWith(prefix)) {
+            throw new ResponseStatusException(
+                    HttpStatus.PRECONDITION_FAILED,
+                    "If-Match is not an ETag of this resource; expected one such as " + example);
+        }
+        tag = tag.substring(prefix.length());
+        if (prefix.equals(AgentConfigDocument.ETAG_PREFIX) && tag.endsWith("-gzip")) {
+            tag = tag.substring(0, tag.length() - "-gzip".length());
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("If-Match must be a single revision ETag such as " + example);
+        }
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String coding = candidate.trim().toLowerCase();
+            if (coding.equals("gzip") || (coding.startsWith("gzip;") && !coding.replace(" ", "").endsWith("q=0"))) {
+                return true;
+            }
+        }
+        return false;
     }
 }
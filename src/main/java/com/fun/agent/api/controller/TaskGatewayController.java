@@ -1,49 +1,70 @@
 package com.fun.agent.api.controller;
 
-import com.fun.agent.api.client.PlaneClient;
+import com.fun.agent.api.client.PlaneResponse;
+import com.fun.agent.api.model.CreateTaskBatchRequest;
+import com.fun.agent.api.model.CreateTaskBatchResponse;
 import com.fun.agent.api.model.CreateTaskRequest;
+import com.fun.agent.api.service.TaskGatewayService;
 import jakarta.validation.Valid;
-import java.util.Map;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping({"/api/v1/tasks", "/v1/tasks"})
 public class TaskGatewayController {
 
-    private final PlaneClient planeClient;
+    private final TaskGatewayService taskGatewayService;
 
-    public TaskGatewayController(PlaneClient planeClient) {
-        this.planeClient = planeClient;
+    public TaskGatewayController(TaskGatewayService taskGatewayService) {
+        this.taskGatewayService = taskGatewayService;
     }
 
     @PostMapping
-    public Mono<ResponseEntity<Map<String, Object>>> createTask(@Valid @RequestBody CreateTaskRequest request) {
-        return planeClient
-                .createTask(request.toPlanePayload())
-                .map(body -> ResponseEntity.accepted().body(body));
+    public Mono<ResponseEntity<byte[]>> createTask(@Valid @RequestBody CreateTaskRequest request) {
+        return taskGatewayService
+                .createTask(request)
+                .map(PlaneResponse::toResponseEntity);
+    }
+
+    @PostMapping("/batch")
+    public Mono<CreateTaskBatchResponse> createTasks(@Valid @RequestBody CreateTaskBatchRequest request) {
+        return taskGatewayService.createTasks(request.tasks());
     }
 
     @GetMapping("/{taskId}")
-    public Mono<Map<String, Object>> getTask(@PathVariable String taskId) {
-        return planeClient.getTask(taskId);
+    public Mono<ResponseEntity<byte[]>> getTask(@PathVariable String taskId) {
+        return taskGatewayService.getTask(taskId).map(PlaneResponse::toResponseEntity);
     }
 
     @PostMapping("/{taskId}/cancel")
-    public Mono<Map<String, Object>> cancelTask(@PathVariable String taskId) {
-        return planeClient.cancelTask(taskId);
+    public Mono<ResponseEntity<byte[]>> cancelTask(@PathVariable String taskId) {
+        return taskGatewayService.cancelTask(taskId).map(PlaneResponse::toResponseEntity);
     }
 
+    /**
+     * Writes the plane's event frames as they are and flushes after each one, so event ids and types reach the
+     * client unchanged and nothing is re-encoded per event.
+     */
     @GetMapping(value = "/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> streamTaskEvents(@PathVariable String taskId) {
-        return planeClient.streamTaskEvents(taskId);
+    public Mono<Void> streamTaskEvents(
+            @PathVariable String taskId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+        response.getHeaders().setCacheControl(CacheControl.noCache());
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        return response.writeAndFlushWith(taskGatewayService.streamTaskEvents(taskId, lastEventId)
+                .map(frame -> Mono.just(bufferFactory.wrap(frame.bytes()))));
     }
 }
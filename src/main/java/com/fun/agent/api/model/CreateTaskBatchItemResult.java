@@ -0,0 +1,27 @@
+package com.fun.agent.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fun.agent.api.client.PlaneResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One item of a batch submission. {@code task} is the plane response body embedded verbatim.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CreateTaskBatchItemResult(
+        int index,
+        int status,
+        @JsonRawValue String task,
+        String error
+) {
+
+    public static CreateTaskBatchItemResult accepted(int index, PlaneResponse response) {
+        String task = response.body().length == 0 ? null : new String(response.body(), StandardCharsets.UTF_8);
+        return new CreateTaskBatchItemResult(index, response.status(), task, null);
+    }
+
+    public static CreateTaskBatchItemResult failed(int index, int status, String error) {
+        return new CreateTaskBatchItemResult(index, status, null, error == null ? "request failed" : error);
+    }
+}
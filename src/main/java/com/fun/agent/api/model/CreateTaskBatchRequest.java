@@ -0,0 +1,10 @@
+package com.fun.agent.api.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record CreateTaskBatchRequest(
+        @NotEmpty List<@Valid CreateTaskRequest> tasks
+) {
+}
@@ -0,0 +1,6 @@
+package com.fun.agent.api.model;
+
+import java.util.List;
+
+public record CreateTaskBatchResponse(List<CreateTaskBatchItemResult> results) {
+}
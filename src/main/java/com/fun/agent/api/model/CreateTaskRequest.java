@@ -19,6 +19,8 @@ public record CreateTaskRequest(
         @Size(max = 12000) String skillPromptOverride,
         @JsonAlias("skill_prompt_overrides")
         Map<String, String> skillPromptOverrides,
+        @JsonAlias("prompt_variant")
+        @Size(max = 128) String promptVariant,
         @JsonAlias("input_payload")
         Map<String, Object> inputPayload,
         @NotBlank @Size(max = 6000) String prompt,
@@ -26,6 +28,20 @@ public record CreateTaskRequest(
         @Size(max = 128) String idempotencyKey
 ) {
 
+    public CreateTaskRequest withWorkflowId(String workflowId) {
+        return new CreateTaskRequest(
+                tenantId,
+                agentId,
+                workflowId,
+                skillId,
+                skillPromptOverride,
+                skillPromptOverrides,
+                promptVariant,
+                inputPayload,
+                prompt,
+                idempotencyKey);
+    }
+
     public Map<String, Object> toPlanePayload() {
         Map<String, Object> payload = new LinkedHashMap<>();
         payload.put("tenant_id", tenantId);
@@ -40,6 +56,9 @@ public record CreateTaskRequest(
         if (skillPromptOverride != null && !skillPromptOverride.isBlank()) {
             payload.put("skill_prompt_override", skillPromptOverride);
         }
+        if (promptVariant != null && !promptVariant.isBlank()) {
+            payload.put("prompt_variant", promptVariant.trim());
+        }
         Map<String, String> sanitizedOverrides = sanitizeSkillPromptOverrides(skillPromptOverrides);
         if (!sanitizedOverrides.isEmpty()) {
             payload.put("skill_prompt_overrides", sanitizedOverrides);
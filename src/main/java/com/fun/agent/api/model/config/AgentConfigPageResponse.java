@@ -0,0 +1,6 @@
+package com.fun.agent.api.model.config;
+
+import java.util.List;
+
+public record AgentConfigPageResponse(List<AgentConfigPayload> agents, String nextCursor) {
+}
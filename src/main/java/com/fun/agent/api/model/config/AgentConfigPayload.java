@@ -13,6 +13,7 @@ public record AgentConfigPayload(
         @Size(max = 2000) String description,
         @Size(max = 128) String defaultWorkflowId,
         List<@Valid WorkflowConfigPayload> workflows,
-        List<@Valid SkillConfigPayload> skills
+        List<@Valid SkillConfigPayload> skills,
+        Long revision
 ) {
 }
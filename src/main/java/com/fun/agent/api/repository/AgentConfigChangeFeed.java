@@ -0,0 +1,158 @@
+package com.fun.agent.api.repository;
+
+import com.fun.agent.api.config.AgentConfigProperties;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cluster-wide change signal for agent config, built on Postgres LISTEN/NOTIFY.
+ *
+ * <p>Writers call {@link #publish()} inside their transaction so the notification is only delivered on commit.
+ * A dedicated listener thread holds one connection and forwards notifications from other nodes to the registered
+ * listeners. That connection is opened through {@link DriverManager} rather than taken from the pool, so the
+ * JDBC offload executor, sized to the pool, never waits on a connection the listener keeps forever. After every
+ * (re)connect the listeners are fired once, since notifications sent while disconnected are lost.
+ */
+@Component
+public class AgentConfigChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentConfigChangeFeed.class);
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("^[a-z_][a-z0-9_]*$");
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final AgentConfigProperties properties;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public AgentConfigChangeFeed(
+            DataSourceProperties dataSourceProperties,
+            JdbcTemplate jdbcTemplate,
+            AgentConfigProperties properties) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.channel = properties.changeChannel() == null ? "" : properties.changeChannel().trim();
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalArgumentException("app.agent-config.change-channel must match " + CHANNEL_PATTERN);
+        }
+    }
+
+    public void publish() {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, nodeId);
+    }
+
+    /**
+     * Channel writers outside JDBC pass to {@code pg_notify} in their own transaction, together with
+     * {@link #nodeId()} as the payload so this node ignores its own change.
+     */
+    public String channel() {
+        return channel;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public void onRemoteChange(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.snapshotEnabled() || !properties.changeListenEnabled()) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "agent-config-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = listenerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                fireListeners();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(Math.max(100, properties.changePollMillis()));
+                    if (notifications != null && containsRemote(notifications)) {
+                        fireListeners();
+                    }
+                }
+            } catch (SQLException | RuntimeException exception) {
+                if (!running) {
+                    return;
+                }
+                log.warn("agent config change listener disconnected, reconnecting: {}", exception.getMessage());
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private boolean containsRemote(PGNotification[] notifications) {
+        for (PGNotification notification : notifications) {
+            if (!nodeId.equals(notification.getParameter())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void fireListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException exception) {
+                log.warn("agent config change listener failed: {}", exception.getMessage());
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(Math.max(1, properties.changeReconnectSeconds()) * 1000L);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
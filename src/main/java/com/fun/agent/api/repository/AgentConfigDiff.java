@@ -0,0 +1,394 @@
+package com.fun.agent.api.repository;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.SkillConfigPayload;
+import com.fun.agent.api.model.config.WorkflowConfigPayload;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Difference between the stored config and a replacement, as the ordered batches that turn one into the other.
+ * Shared by the JDBC and R2DBC stores so a replace touches exactly the same rows whichever store runs it.
+ *
+ * <p>Also holds the revision statements both stores use for optimistic concurrency: every agent row carries a
+ * {@code revision} that goes up with each change to the agent or its children. The global revision is the sum of
+ * all agent revisions plus the offset in {@code agent_cfg.config_revision}, so a single-agent write raises it by
+ * one while locking only its own agent row. Only a replace writes the offset, setting it so the global revision
+ * goes up by exactly one across inserts and deletes. Each committed state therefore has its own global revision,
+ * and writes to different agents never wait on each other.
+ */
+final class AgentConfigDiff {
+
+    /**
+     * Taken first by a replace: conflicts with itself and with the row locks of single-agent writes, so replaces
+     * run one at a time and see no single-agent write commit between reading and setting the global revision.
+     * Plain reads are not blocked.
+     */
+    static final String REPLACE_LOCK_SQL = "LOCK TABLE agent_cfg.agents IN SHARE ROW EXCLUSIVE MODE";
+
+    static final String SELECT_AGENTS_SQL = """
+            SELECT agent_id, display_name, owner_name, status, description, default_workflow_id
+            FROM agent_cfg.agents
+            """;
+
+    static final String SELECT_WORKFLOWS_SQL = """
+            SELECT agent_id, workflow_id, name, description, model_profile, sort_order
+            FROM agent_cfg.workflows
+            """;
+
+    static final String SELECT_SKILLS_SQL = """
+            SELECT agent_id, skill_id, name, prompt_template, sort_order
+            FROM agent_cfg.skills
+            """;
+
+    static final String SELECT_VARIANTS_SQL = """
+            SELECT agent_id, skill_id, variant_key, prompt_template
+            FROM agent_cfg.skill_prompt_variants
+            """;
+
+    static final String SELECT_REVISION_SQL = """
+            SELECT c.revision + CAST(COALESCE((SELECT SUM(a.revision) FROM agent_cfg.agents a), 0) AS BIGINT)
+            FROM agent_cfg.config_revision c
+            """;
+
+    /**
+     * Ends a replace: sets the offset so the global revision is the one read at its start (the only parameter)
+     * plus one, whatever the agent revisions add up to now.
+     */
+    static final String SET_CONFIG_REVISION_SQL = """
+            UPDATE agent_cfg.config_revision
+            SET revision = CAST(? AS BIGINT) + 1
+                    - CAST(COALESCE((SELECT SUM(a.revision) FROM agent_cfg.agents a), 0) AS BIGINT),
+                updated_at = NOW()
+            """;
+
+    /**
+     * Compare-and-set on one agent row: bumps its revision when the expected revision (second parameter, may be
+     * {@code null}) still matches. Updates nothing when the agent is missing or has moved on.
+     */
+    static final String BUMP_AGENT_REVISION_SQL = """
+            UPDATE agent_cfg.agents
+            SET revision = revision + 1, updated_at = NOW()
+            WHERE agent_id = ? AND revision = COALESCE(CAST(? AS BIGINT), revision)
+            """;
+
+    static final String AGENT_EXISTS_SQL = "SELECT COUNT(*) FROM agent_cfg.agents WHERE agent_id = ?";
+
+    private AgentConfigDiff() {
+    }
+
+    static OptimisticLockingFailureException configRevisionConflict(Long expectedRevision) {
+        return new OptimisticLockingFailureException(
+                "agent config revision changed: config is no longer at revision " + expectedRevision);
+    }
+
+    static OptimisticLockingFailureException agentRevisionConflict(String agentId, Long expectedRevision) {
+        return new OptimisticLockingFailureException(
+                "agent revision changed: " + agentId + " is no longer at revision " + expectedRevision);
+    }
+
+    /**
+     * One statement with {@code ?} placeholders and a parameter row per execution.
+     */
+    record BatchWrite(String sql, List<Object[]> rows) {
+    }
+
+    /**
+     * Revision bumps for the surviving agents that change first, then deletes (agents, then children not already
+     * removed by {@code ON DELETE CASCADE}), then inserts and updates per table, parents before children. Empty
+     * batches are left out.
+     */
+    static List<BatchWrite> between(StoredConfig current, StoredConfig desired) {
+        Set<String> deletedAgentIds = new HashSet<>();
+        for (RowKey key : current.agents.keySet()) {
+            if (!desired.agents.containsKey(key)) {
+                deletedAgentIds.add(key.agentId());
+            }
+        }
+        Set<RowKey> deletedSkillKeys = new HashSet<>();
+        for (RowKey key : current.skills.keySet()) {
+            if (!desired.skills.containsKey(key)) {
+                deletedSkillKeys.add(key);
+            }
+        }
+
+        List<RowKey> removedWorkflows = removedKeys(current.workflows, desired.workflows, deletedAgentIds, Set.of());
+        List<RowKey> removedSkills = removedKeys(current.skills, desired.skills, deletedAgentIds, Set.of());
+        List<RowKey> removedVariants =
+                removedKeys(current.variants, desired.variants, deletedAgentIds, deletedSkillKeys);
+        List<StoredAgent> addedAgents = addedRows(current.agents, desired.agents);
+        List<StoredAgent> changedAgents = changedRows(current.agents, desired.agents);
+        List<StoredWorkflow> addedWorkflows = addedRows(current.workflows, desired.workflows);
+        List<StoredWorkflow> changedWorkflows = changedRows(current.workflows, desired.workflows);
+        List<StoredSkill> addedSkills = addedRows(current.skills, desired.skills);
+        List<StoredSkill> changedSkills = changedRows(current.skills, desired.skills);
+        List<StoredVariant> addedVariants = addedRows(current.variants, desired.variants);
+        List<StoredVariant> changedVariants = changedRows(current.variants, desired.variants);
+
+        Set<String> touchedAgentIds = new TreeSet<>();
+        changedAgents.forEach(row -> touchedAgentIds.add(row.agentId()));
+        addedWorkflows.forEach(row -> touchedAgentIds.add(row.agentId()));
+        changedWorkflows.forEach(row -> touchedAgentIds.add(row.agentId()));
+        addedSkills.forEach(row -> touchedAgentIds.add(row.agentId()));
+        changedSkills.forEach(row -> touchedAgentIds.add(row.agentId()));
+        addedVariants.forEach(row -> touchedAgentIds.add(row.agentId()));
+        changedVariants.forEach(row -> touchedAgentIds.add(row.agentId()));
+        for (List<RowKey> removed : List.of(removedWorkflows, removedSkills, removedVariants)) {
+            removed.forEach(key -> touchedAgentIds.add(key.agentId()));
+        }
+        addedAgents.forEach(row -> touchedAgentIds.remove(row.agentId()));
+
+        List<BatchWrite> writes = new ArrayList<>();
+        add(writes,
+                "UPDATE agent_cfg.agents SET revision = revision + 1, updated_at = NOW() WHERE agent_id = ?",
+                touchedAgentIds.stream().map(agentId -> new Object[] {agentId}).toList());
+        add(writes,
+                "DELETE FROM agent_cfg.agents WHERE agent_id = ?",
+                deletedAgentIds.stream().map(agentId -> new Object[] {agentId}).toList());
+        add(writes,
+                "DELETE FROM agent_cfg.workflows WHERE agent_id = ? AND workflow_id = ?",
+                removedWorkflows.stream()
+                        .map(key -> new Object[] {key.agentId(), key.childId()})
+                        .toList());
+        add(writes,
+                "DELETE FROM agent_cfg.skills WHERE agent_id = ? AND skill_id = ?",
+                removedSkills.stream()
+                        .map(key -> new Object[] {key.agentId(), key.childId()})
+                        .toList());
+        add(writes,
+                "DELETE FROM agent_cfg.skill_prompt_variants WHERE agent_id = ? AND skill_id = ? AND variant_key = ?",
+                removedVariants.stream()
+                        .map(key -> new Object[] {key.agentId(), key.childId(), key.variantKey()})
+                        .toList());
+
+        add(writes,
+                """
+                INSERT INTO agent_cfg.agents
+                (agent_id, display_name, owner_name, status, description, default_workflow_id, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, NOW())
+                """,
+                addedAgents.stream()
+                        .map(row -> new Object[] {
+                                row.agentId(), row.displayName(), row.ownerName(), row.status(),
+                                row.description(), row.defaultWorkflowId()})
+                        .toList());
+        add(writes,
+                """
+                UPDATE agent_cfg.agents
+                SET display_name = ?, owner_name = ?, status = ?, description = ?, default_workflow_id = ?,
+                    updated_at = NOW()
+                WHERE agent_id = ?
+                """,
+                changedAgents.stream()
+                        .map(row -> new Object[] {
+                                row.displayName(), row.ownerName(), row.status(), row.description(),
+                                row.defaultWorkflowId(), row.agentId()})
+                        .toList());
+
+        add(writes,
+                """
+                INSERT INTO agent_cfg.workflows
+                (agent_id, workflow_id, name, description, model_profile, sort_order, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, NOW())
+                """,
+                addedWorkflows.stream()
+                        .map(row -> new Object[] {
+                                row.agentId(), row.workflowId(), row.name(), row.description(),
+                                row.modelProfile(), row.sortOrder()})
+                        .toList());
+        add(writes,
+                """
+                UPDATE agent_cfg.workflows
+                SET name = ?, description = ?, model_profile = ?, sort_order = ?, updated_at = NOW()
+                WHERE agent_id = ? AND workflow_id = ?
+                """,
+                changedWorkflows.stream()
+                        .map(row -> new Object[] {
+                                row.name(), row.description(), row.modelProfile(), row.sortOrder(),
+                                row.agentId(), row.workflowId()})
+                        .toList());
+
+        add(writes,
+                """
+                INSERT INTO agent_cfg.skills
+                (agent_id, skill_id, name, prompt_template, sort_order, updated_at)
+                VALUES (?, ?, ?, ?, ?, NOW())
+                """,
+                addedSkills.stream()
+                        .map(row -> new Object[] {
+                                row.agentId(), row.skillId(), row.name(), row.promptTemplate(), row.sortOrder()})
+                        .toList());
+        add(writes,
+                """
+                UPDATE agent_cfg.skills
+                SET name = ?, prompt_template = ?, sort_order = ?, updated_at = NOW()
+                WHERE agent_id = ? AND skill_id = ?
+                """,
+                changedSkills.stream()
+                        .map(row -> new Object[] {
+                                row.name(), row.promptTemplate(), row.sortOrder(), row.agentId(), row.skillId()})
+                        .toList());
+
+        add(writes,
+                """
+                INSERT INTO agent_cfg.skill_prompt_variants
+                (agent_id, skill_id, variant_key, prompt_template, updated_at)
+                VALUES (?, ?, ?, ?, NOW())
+                """,
+                addedVariants.stream()
+                        .map(row -> new Object[] {row.agentId(), row.skillId(), row.variantKey(), row.promptTemplate()})
+                        .toList());
+        add(writes,
+                """
+                UPDATE agent_cfg.skill_prompt_variants
+                SET prompt_template = ?, updated_at = NOW()
+                WHERE agent_id = ? AND skill_id = ? AND variant_key = ?
+                """,
+                changedVariants.stream()
+                        .map(row -> new Object[] {row.promptTemplate(), row.agentId(), row.skillId(), row.variantKey()})
+                        .toList());
+        return writes;
+    }
+
+    private static void add(List<BatchWrite> writes, String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            writes.add(new BatchWrite(sql, rows));
+        }
+    }
+
+    private static <T> List<T> addedRows(Map<RowKey, T> current, Map<RowKey, T> desired) {
+        List<T> added = new ArrayList<>();
+        for (Map.Entry<RowKey, T> entry : desired.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                added.add(entry.getValue());
+            }
+        }
+        return added;
+    }
+
+    private static <T> List<T> changedRows(Map<RowKey, T> current, Map<RowKey, T> desired) {
+        List<T> changed = new ArrayList<>();
+        for (Map.Entry<RowKey, T> entry : desired.entrySet()) {
+            T existing = current.get(entry.getKey());
+            if (existing != null && !existing.equals(entry.getValue())) {
+                changed.add(entry.getValue());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Keys present now but absent from the desired config, minus rows that an agent or skill delete already
+     * removes through {@code ON DELETE CASCADE}.
+     */
+    private static <T> List<RowKey> removedKeys(
+            Map<RowKey, T> current,
+            Map<RowKey, T> desired,
+            Set<String> deletedAgentIds,
+            Set<RowKey> deletedSkillKeys) {
+        List<RowKey> removed = new ArrayList<>();
+        for (RowKey key : current.keySet()) {
+            if (desired.containsKey(key) || deletedAgentIds.contains(key.agentId())) {
+                continue;
+            }
+            if (!deletedSkillKeys.isEmpty() && deletedSkillKeys.contains(new RowKey(key.agentId(), key.childId(), null))) {
+                continue;
+            }
+            removed.add(key);
+        }
+        return removed;
+    }
+
+    private record RowKey(String agentId, String childId, String variantKey) {
+    }
+
+    record StoredAgent(
+            String agentId,
+            String displayName,
+            String ownerName,
+            String status,
+            String description,
+            String defaultWorkflowId) {
+    }
+
+    record StoredWorkflow(
+            String agentId,
+            String workflowId,
+            String name,
+            String description,
+            String modelProfile,
+            int sortOrder) {
+    }
+
+    record StoredSkill(String agentId, String skillId, String name, String promptTemplate, int sortOrder) {
+    }
+
+    record StoredVariant(String agentId, String skillId, String variantKey, String promptTemplate) {
+    }
+
+    /**
+     * Flat, keyed view of the four config tables used to diff a replace against what is stored.
+     */
+    static final class StoredConfig {
+        private final Map<RowKey, StoredAgent> agents = new LinkedHashMap<>();
+        private final Map<RowKey, StoredWorkflow> workflows = new LinkedHashMap<>();
+        private final Map<RowKey, StoredSkill> skills = new LinkedHashMap<>();
+        private final Map<RowKey, StoredVariant> variants = new LinkedHashMap<>();
+
+        static StoredConfig of(List<AgentConfigPayload> payloads) {
+            StoredConfig config = new StoredConfig();
+            for (AgentConfigPayload agent : payloads) {
+                config.add(new StoredAgent(
+                        agent.id(),
+                        agent.name(),
+                        agent.owner(),
+                        agent.status(),
+                        agent.description(),
+                        agent.defaultWorkflowId()));
+                int workflowSort = 1;
+                for (WorkflowConfigPayload workflow : agent.workflows()) {
+                    config.add(new StoredWorkflow(
+                            agent.id(),
+                            workflow.id(),
+                            workflow.name(),
+                            workflow.description(),
+                            workflow.modelProfile(),
+                            workflowSort++));
+                }
+                int skillSort = 1;
+                for (SkillConfigPayload skill : agent.skills()) {
+                    config.add(new StoredSkill(agent.id(), skill.id(), skill.name(), skill.promptTemplate(), skillSort++));
+                    if (skill.promptVariants() == null) {
+                        continue;
+                    }
+                    for (Map.Entry<String, String> entry : skill.promptVariants().entrySet()) {
+                        config.add(new StoredVariant(agent.id(), skill.id(), entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+            return config;
+        }
+
+        void add(StoredAgent row) {
+            agents.put(new RowKey(row.agentId(), null, null), row);
+        }
+
+        void add(StoredWorkflow row) {
+            workflows.put(new RowKey(row.agentId(), row.workflowId(), null), row);
+        }
+
+        void add(StoredSkill row) {
+            skills.put(new RowKey(row.agentId(), row.skillId(), null), row);
+        }
+
+        void add(StoredVariant row) {
+            variants.put(new RowKey(row.agentId(), row.skillId(), row.variantKey()), row);
+        }
+    }
+}
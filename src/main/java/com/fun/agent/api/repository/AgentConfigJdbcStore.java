@@ -3,79 +3,165 @@ package com.fun.agent.api.repository;
 import com.fun.agent.api.model.config.AgentConfigPayload;
 import com.fun.agent.api.model.config.SkillConfigPayload;
 import com.fun.agent.api.model.config.WorkflowConfigPayload;
+import com.fun.agent.api.repository.AgentConfigDiff.BatchWrite;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredAgent;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredConfig;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredSkill;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredVariant;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredWorkflow;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 @Repository
-public class AgentConfigJdbcStore {
+public class AgentConfigJdbcStore implements AgentConfigReader {
 
     private final JdbcTemplate jdbcTemplate;
+    private final AgentConfigChangeFeed changeFeed;
 
-    public AgentConfigJdbcStore(JdbcTemplate jdbcTemplate) {
+    public AgentConfigJdbcStore(JdbcTemplate jdbcTemplate, AgentConfigChangeFeed changeFeed) {
         this.jdbcTemplate = jdbcTemplate;
+        this.changeFeed = changeFeed;
     }
 
+    @Override
     public List<AgentConfigPayload> findAll() {
-        List<AgentRow> agentRows = jdbcTemplate.query(
+        List<AgentRow> agentRows = queryAgents("", "");
+        return assemble(
+                agentRows,
+                queryWorkflows(""),
+                querySkills(""),
+                queryVariants(""));
+    }
+
+    @Override
+    public Optional<AgentConfigPayload> findById(String agentId) {
+        List<AgentRow> agentRows = queryAgents("WHERE agent_id = ?", "", agentId);
+        if (agentRows.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(assemble(
+                agentRows,
+                queryWorkflows("WHERE agent_id = ?", agentId),
+                querySkills("WHERE agent_id = ?", agentId),
+                queryVariants("WHERE agent_id = ?", agentId)).get(0));
+    }
+
+    /**
+     * Keyset page over agents ordered by {@code agent_id}, optionally filtered by status and owner. Children are
+     * loaded only for the agents on the page, through the {@code (agent_id, ...)} primary keys and sort indexes.
+     */
+    @Override
+    public List<AgentConfigPayload> findPage(String status, String owner, String afterAgentId, int limit) {
+        List<AgentRow> agentRows = queryAgents(
                 """
-                SELECT agent_id, display_name, owner_name, status, description, default_workflow_id
-                FROM agent_cfg.agents
-                ORDER BY agent_id
+                WHERE (CAST(? AS VARCHAR) IS NULL OR status = ?)
+                  AND (CAST(? AS VARCHAR) IS NULL OR owner_name = ?)
+                  AND agent_id > ?
                 """,
+                "LIMIT ?",
+                status,
+                status,
+                owner,
+                owner,
+                afterAgentId == null ? "" : afterAgentId,
+                limit);
+        if (agentRows.isEmpty()) {
+            return List.of();
+        }
+        String[] agentIds = agentRows.stream().map(row -> row.agentId).toArray(String[]::new);
+        return assemble(
+                agentRows,
+                queryWorkflows("WHERE agent_id = ANY(?)", (Object) agentIds),
+                querySkills("WHERE agent_id = ANY(?)", (Object) agentIds),
+                queryVariants("WHERE agent_id = ANY(?)", (Object) agentIds));
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public RevisionedAgentConfigs findAllWithRevision() {
+        long revision = jdbcTemplate.queryForObject(AgentConfigDiff.SELECT_REVISION_SQL, Long.class);
+        return new RevisionedAgentConfigs(revision, findAll());
+    }
+
+    private List<AgentRow> queryAgents(String where, String limit, Object... args) {
+        return jdbcTemplate.query(
+                """
+                SELECT agent_id, display_name, owner_name, status, description, default_workflow_id, revision
+                FROM agent_cfg.agents
+                """ + where + " ORDER BY agent_id " + limit,
                 (rs, rowNum) -> new AgentRow(
                         rs.getString("agent_id"),
                         rs.getString("display_name"),
                         rs.getString("owner_name"),
                         rs.getString("status"),
                         rs.getString("description"),
-                        rs.getString("default_workflow_id")));
+                        rs.getString("default_workflow_id"),
+                        rs.getLong("revision")),
+                args);
+    }
 
-        List<WorkflowRow> workflowRows = jdbcTemplate.query(
+    private List<WorkflowRow> queryWorkflows(String where, Object... args) {
+        return jdbcTemplate.query(
                 """
                 SELECT agent_id, workflow_id, name, description, model_profile
                 FROM agent_cfg.workflows
-                ORDER BY agent_id, sort_order, workflow_id
-                """,
+                """ + where + " ORDER BY agent_id, sort_order, workflow_id",
                 (rs, rowNum) -> new WorkflowRow(
                         rs.getString("agent_id"),
                         rs.getString("workflow_id"),
                         rs.getString("name"),
                         rs.getString("description"),
-                        rs.getString("model_profile")));
-        Map<String, List<WorkflowConfigPayload>> workflowsByAgent = new LinkedHashMap<>();
-        for (WorkflowRow row : workflowRows) {
-            workflowsByAgent.computeIfAbsent(row.agentId, ignored -> new ArrayList<>())
-                    .add(new WorkflowConfigPayload(row.workflowId, row.name, row.description, row.modelProfile));
-        }
+                        rs.getString("model_profile")),
+                args);
+    }
 
-        List<SkillRow> skillRows = jdbcTemplate.query(
+    private List<SkillRow> querySkills(String where, Object... args) {
+        return jdbcTemplate.query(
                 """
                 SELECT agent_id, skill_id, name, prompt_template
                 FROM agent_cfg.skills
-                ORDER BY agent_id, sort_order, skill_id
-                """,
+                """ + where + " ORDER BY agent_id, sort_order, skill_id",
                 (rs, rowNum) -> new SkillRow(
                         rs.getString("agent_id"),
                         rs.getString("skill_id"),
                         rs.getString("name"),
-                        rs.getString("prompt_template")));
+                        rs.getString("prompt_template")),
+                args);
+    }
 
-        List<SkillPromptVariantRow> variantRows = jdbcTemplate.query(
+    private List<SkillPromptVariantRow> queryVariants(String where, Object... args) {
+        return jdbcTemplate.query(
                 """
                 SELECT agent_id, skill_id, variant_key, prompt_template
                 FROM agent_cfg.skill_prompt_variants
-                ORDER BY agent_id, skill_id, variant_key
-                """,
+                """ + where + " ORDER BY agent_id, skill_id, variant_key",
                 (rs, rowNum) -> new SkillPromptVariantRow(
                         rs.getString("agent_id"),
                         rs.getString("skill_id"),
                         rs.getString("variant_key"),
-                        rs.getString("prompt_template")));
+                        rs.getString("prompt_template")),
+                args);
+    }
+
+    private List<AgentConfigPayload> assemble(
+            List<AgentRow> agentRows,
+            List<WorkflowRow> workflowRows,
+            List<SkillRow> skillRows,
+            List<SkillPromptVariantRow> variantRows) {
+        Map<String, List<WorkflowConfigPayload>> workflowsByAgent = new LinkedHashMap<>();
+        for (WorkflowRow row : workflowRows) {
+            workflowsByAgent.computeIfAbsent(row.agentId, ignored -> new ArrayList<>())
+                    .add(new WorkflowConfigPayload(row.workflowId, row.name, row.description, row.modelProfile));
+        }
 
         Map<String, Map<String, String>> variantsByAgentSkill = new LinkedHashMap<>();
         for (SkillPromptVariantRow row : variantRows) {
@@ -106,81 +192,90 @@ public class AgentConfigJdbcStore {
                     row.description,
                     row.defaultWorkflowId,
                     workflowsByAgent.getOrDefault(row.agentId, List.of()),
-                    skillsByAgent.getOrDefault(row.agentId, List.of())));
+                    skillsByAgent.getOrDefault(row.agentId, List.of()),
+                    row.revision));
         }
         return result;
     }
 
+    /**
+     * Replaces the stored config with {@code agents} by applying only the difference to what is stored. Rows that
+     * did not change are left alone (including their {@code updated_at}), and each kind of change is sent as one
+     * JDBC batch, so lock hold time scales with the size of the change rather than the size of the config.
+     * Concurrent replaces are serialized with a table lock on {@code agent_cfg.agents} that also waits out
+     * single-agent writes, instead of table-wide deletes.
+     *
+     * <p>With {@code expectedRevision} the replace only runs if the global revision still has that value once the
+     * lock is held, so a replace computed from an outdated read fails with
+     * {@link org.springframework.dao.OptimisticLockingFailureException} instead of overwriting a newer write.
+     */
     @Transactional
-    public void replaceAll(List<AgentConfigPayload> agents) {
-        jdbcTemplate.update("DELETE FROM agent_cfg.skills");
-        jdbcTemplate.update("DELETE FROM agent_cfg.workflows");
-        jdbcTemplate.update("DELETE FROM agent_cfg.agents");
-
-        for (AgentConfigPayload agent : agents) {
-            jdbcTemplate.update(
-                    """
-                    INSERT INTO agent_cfg.agents
-                    (agent_id, display_name, owner_name, status, description, default_workflow_id, updated_at)
-                    VALUES (?, ?, ?, ?, ?, ?, NOW())
-                    """,
-                    agent.id(),
-                    agent.name(),
-                    agent.owner(),
-                    agent.status(),
-                    agent.description(),
-                    agent.defaultWorkflowId());
-
-            int workflowSort = 1;
-            for (WorkflowConfigPayload workflow : agent.workflows()) {
-                jdbcTemplate.update(
-                        """
-                        INSERT INTO agent_cfg.workflows
-                        (agent_id, workflow_id, name, description, model_profile, sort_order, updated_at)
-                        VALUES (?, ?, ?, ?, ?, ?, NOW())
-                        """,
-                        agent.id(),
-                        workflow.id(),
-                        workflow.name(),
-                        workflow.description(),
-                        workflow.modelProfile(),
-                        workflowSort++);
-            }
-
-            int skillSort = 1;
-            for (SkillConfigPayload skill : agent.skills()) {
-                jdbcTemplate.update(
-                        """
-                        INSERT INTO agent_cfg.skills
-                        (agent_id, skill_id, name, prompt_template, sort_order, updated_at)
-                        VALUES (?, ?, ?, ?, ?, NOW())
-                        """,
-                        agent.id(),
-                        skill.id(),
-                        skill.name(),
-                        skill.promptTemplate(),
-                        skillSort++);
-
-                if (skill.promptVariants() == null || skill.promptVariants().isEmpty()) {
-                    continue;
-                }
-                for (Map.Entry<String, String> entry : skill.promptVariants().entrySet()) {
-                    jdbcTemplate.update(
-                            """
-                            INSERT INTO agent_cfg.skill_prompt_variants
-                            (agent_id, skill_id, variant_key, prompt_template, updated_at)
-                            VALUES (?, ?, ?, ?, NOW())
-                            """,
-                            agent.id(),
-                            skill.id(),
-                            entry.getKey(),
-                            entry.getValue());
-                }
-            }
+    public void replaceAll(List<AgentConfigPayload> agents, Long expectedRevision) {
+        jdbcTemplate.execute(AgentConfigDiff.REPLACE_LOCK_SQL);
+        long revision = jdbcTemplate.queryForObject(AgentConfigDiff.SELECT_REVISION_SQL, Long.class);
+        if (expectedRevision != null && expectedRevision != revision) {
+            throw AgentConfigDiff.configRevisionConflict(expectedRevision);
+        }
+        for (BatchWrite write : AgentConfigDiff.between(loadStoredConfig(), StoredConfig.of(agents))) {
+            jdbcTemplate.batchUpdate(write.sql(), write.rows());
         }
+        jdbcTemplate.update(AgentConfigDiff.SET_CONFIG_REVISION_SQL, revision);
+        changeFeed.publish();
     }
 
-    public boolean updateSkillPrompt(String agentId, String skillId, String skillName, String promptTemplate) {
+    private StoredConfig loadStoredConfig() {
+        StoredConfig stored = new StoredConfig();
+        jdbcTemplate.query(
+                AgentConfigDiff.SELECT_AGENTS_SQL,
+                (RowCallbackHandler) rs -> stored.add(new StoredAgent(
+                        rs.getString("agent_id"),
+                        rs.getString("display_name"),
+                        rs.getString("owner_name"),
+                        rs.getString("status"),
+                        rs.getString("description"),
+                        rs.getString("default_workflow_id"))));
+        jdbcTemplate.query(
+                AgentConfigDiff.SELECT_WORKFLOWS_SQL,
+                (RowCallbackHandler) rs -> stored.add(new StoredWorkflow(
+                        rs.getString("agent_id"),
+                        rs.getString("workflow_id"),
+                        rs.getString("name"),
+                        rs.getString("description"),
+                        rs.getString("model_profile"),
+                        rs.getInt("sort_order"))));
+        jdbcTemplate.query(
+                AgentConfigDiff.SELECT_SKILLS_SQL,
+                (RowCallbackHandler) rs -> stored.add(new StoredSkill(
+                        rs.getString("agent_id"),
+                        rs.getString("skill_id"),
+                        rs.getString("name"),
+                        rs.getString("prompt_template"),
+                        rs.getInt("sort_order"))));
+        jdbcTemplate.query(
+                AgentConfigDiff.SELECT_VARIANTS_SQL,
+                (RowCallbackHandler) rs -> stored.add(new StoredVariant(
+                        rs.getString("agent_id"),
+                        rs.getString("skill_id"),
+                        rs.getString("variant_key"),
+                        rs.getString("prompt_template"))));
+        return stored;
+    }
+
+    /**
+     * Updates one skill under a compare-and-set on its agent's revision ({@code null} skips the comparison). Only
+     * that agent row is locked, so writes to different agents run in parallel. Returns {@code false} when the agent
+     * or skill does not exist.
+     */
+    @Transactional
+    public boolean updateSkillPrompt(
+            String agentId,
+            String skillId,
+            String skillName,
+            String promptTemplate,
+            Long expectedRevision) {
+        if (!bumpAgentRevision(agentId, expectedRevision)) {
+            return false;
+        }
         int updated = jdbcTemplate.update(
                 """
                 UPDATE agent_cfg.skills
@@ -191,11 +286,24 @@ public class AgentConfigJdbcStore {
                 promptTemplate,
                 agentId,
                 skillId);
-        return updated > 0;
+        return finishAgentWrite(updated);
     }
 
-    public void upsertSkillPromptVariant(String agentId, String skillId, String variantKey, String promptTemplate) {
-        jdbcTemplate.update(
+    /**
+     * Inserts or replaces one prompt variant under a compare-and-set on its agent's revision. Returns {@code false}
+     * when the agent does not exist.
+     */
+    @Transactional
+    public boolean upsertSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            String promptTemplate,
+            Long expectedRevision) {
+        if (!bumpAgentRevision(agentId, expectedRevision)) {
+            return false;
+        }
+        int upserted = jdbcTemplate.update(
                 """
                 INSERT INTO agent_cfg.skill_prompt_variants
                 (agent_id, skill_id, variant_key, prompt_template, updated_at)
@@ -207,9 +315,18 @@ public class AgentConfigJdbcStore {
                 skillId,
                 variantKey,
                 promptTemplate);
+        return finishAgentWrite(upserted);
     }
 
-    public boolean deleteSkillPromptVariant(String agentId, String skillId, String variantKey) {
+    /**
+     * Deletes one prompt variant under a compare-and-set on its agent's revision. Returns {@code false} when the
+     * agent or variant does not exist.
+     */
+    @Transactional
+    public boolean deleteSkillPromptVariant(String agentId, String skillId, String variantKey, Long expectedRevision) {
+        if (!bumpAgentRevision(agentId, expectedRevision)) {
+            return false;
+        }
         int deleted = jdbcTemplate.update(
                 """
                 DELETE FROM agent_cfg.skill_prompt_variants
@@ -218,7 +335,38 @@ public class AgentConfigJdbcStore {
                 agentId,
                 skillId,
                 variantKey);
-        return deleted > 0;
+        return finishAgentWrite(deleted);
+    }
+
+    /**
+     * Bumps the agent's revision, returning {@code false} when the agent does not exist. A mismatch against
+     * {@code expectedRevision} fails with {@link org.springframework.dao.OptimisticLockingFailureException}.
+     */
+    private boolean bumpAgentRevision(String agentId, Long expectedRevision) {
+        if (jdbcTemplate.update(AgentConfigDiff.BUMP_AGENT_REVISION_SQL, agentId, expectedRevision) > 0) {
+            return true;
+        }
+        if (expectedRevision == null) {
+            return false;
+        }
+        Long agents = jdbcTemplate.queryForObject(AgentConfigDiff.AGENT_EXISTS_SQL, Long.class, agentId);
+        if (agents != null && agents > 0) {
+            throw AgentConfigDiff.agentRevisionConflict(agentId, expectedRevision);
+        }
+        return false;
+    }
+
+    /**
+     * Completes a single-agent write: with no row changed the agent revision bump is rolled back, otherwise other
+     * nodes are told to reload. The agent revision bump alone moves the global revision on.
+     */
+    private boolean finishAgentWrite(int rowsChanged) {
+        if (rowsChanged == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        changeFeed.publish();
+        return true;
     }
 
     private static final class AgentRow {
@@ -228,6 +376,7 @@ public class AgentConfigJdbcStore {
         private final String status;
         private final String description;
         private final String defaultWorkflowId;
+        private final long revision;
 
         private AgentRow(
                 String agentId,
@@ -235,13 +384,15 @@ public class AgentConfigJdbcStore {
                 String ownerName,
                 String status,
                 String description,
-                String defaultWorkflowId) {
+                String defaultWorkflowId,
+                long revision) {
             this.agentId = agentId;
             this.displayName = displayName;
             this.ownerName = ownerName;
             this.status = status;
             this.description = description;
             this.defaultWorkflowId = defaultWorkflowId;
+            this.revision = revision;
         }
     }
 
@@ -0,0 +1,215 @@
+package com.fun.agent.api.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads agent config as one JSON document assembled by Postgres, so a read is a single round trip and the Java
+ * side only decodes the result instead of stitching four result sets together.
+ */
+@Repository
+public class AgentConfigJsonReader implements AgentConfigReader {
+
+    private static final TypeReference<List<AgentConfigPayload>> AGENT_LIST_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * One row per agent: {@code agent_id} plus the agent rendered in the same shape as {@link AgentConfigPayload}.
+     * Uses {@code json} rather than {@code jsonb} so object keys and variant order are preserved.
+     */
+    static final String AGENT_DOCUMENT_SELECT = """
+            SELECT a.agent_id,
+                   json_build_object(
+                       'id', a.agent_id,
+                       'name', a.display_name,
+                       'owner', a.owner_name,
+                       'status', a.status,
+                       'description', a.description,
+                       'defaultWorkflowId', a.default_workflow_id,
+                       'workflows', COALESCE((
+                           SELECT json_agg(json_build_object(
+                                       'id', w.workflow_id,
+                                       'name', w.name,
+                                       'description', w.description,
+                                       'modelProfile', w.model_profile)
+                                   ORDER BY w.sort_order, w.workflow_id)
+                           FROM agent_cfg.workflows w
+                           WHERE w.agent_id = a.agent_id), '[]'::json),
+                       'skills', COALESCE((
+                           SELECT json_agg(json_build_object(
+                                       'id', s.skill_id,
+                                       'name', s.name,
+                                       'promptTemplate', s.prompt_template,
+                                       'promptVariants', COALESCE((
+                                           SELECT json_object_agg(v.variant_key, v.prompt_template ORDER BY v.variant_key)
+                                           FROM agent_cfg.skill_prompt_variants v
+                                           WHERE v.agent_id = s.agent_id AND v.skill_id = s.skill_id), '{}'::json))
+                                   ORDER BY s.sort_order, s.skill_id)
+                           FROM agent_cfg.skills s
+                           WHERE s.agent_id = a.agent_id), '[]'::json),
+                       'revision', a.revision
+                   ) AS agent_document
+            FROM agent_cfg.agents a
+            """;
+
+    private static final String STREAM_SQL = AGENT_DOCUMENT_SELECT + " ORDER BY a.agent_id";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public AgentConfigJsonReader(DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<AgentConfigPayload> findAll() {
+        return queryDocuments("", "");
+    }
+
+    @Override
+    public Optional<AgentConfigPayload> findById(String agentId) {
+        return queryDocuments("WHERE a.agent_id = ?", "", agentId).stream().findFirst();
+    }
+
+    @Override
+    public List<AgentConfigPayload> findPage(String status, String owner, String afterAgentId, int limit) {
+        return queryDocuments(
+                """
+                WHERE (CAST(? AS VARCHAR) IS NULL OR a.status = ?)
+                  AND (CAST(? AS VARCHAR) IS NULL OR a.owner_name = ?)
+                  AND a.agent_id > ?
+                """,
+                "LIMIT ?",
+                status,
+                status,
+                owner,
+                owner,
+                afterAgentId == null ? "" : afterAgentId,
+                limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public RevisionedAgentConfigs findAllWithRevision() {
+        long revision = jdbcTemplate.queryForObject(AgentConfigDiff.SELECT_REVISION_SQL, Long.class);
+        return new RevisionedAgentConfigs(revision, findAll());
+    }
+
+    /**
+     * Streams one newline-terminated JSON document per agent, ordered by {@code agent_id}. The query runs in a
+     * read-only transaction with {@code fetchSize} so Postgres uses a server-side cursor and only one fetch batch
+     * is held in memory. The caller must close the stream to release the connection.
+     */
+    public Stream<byte[]> streamAgentDocuments(int fetchSize) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            PreparedStatement statement = connection.prepareStatement(STREAM_SQL);
+            statement.setFetchSize(Math.max(1, fetchSize));
+            ResultSet resultSet = statement.executeQuery();
+            Connection openConnection = connection;
+            return StreamSupport.stream(new AgentDocumentSpliterator(resultSet), false)
+                    .onClose(() -> release(resultSet, statement, openConnection));
+        } catch (SQLException exception) {
+            release(null, null, connection);
+            throw translate(exception);
+        }
+    }
+
+    private void release(ResultSet resultSet, PreparedStatement statement, Connection connection) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+            if (connection != null) {
+                connection.rollback();
+            }
+        } catch (SQLException ignored) {
+            // the connection is closed below either way
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+    }
+
+    private RuntimeException translate(SQLException exception) {
+        RuntimeException translated = jdbcTemplate.getExceptionTranslator().translate("stream agent config", STREAM_SQL, exception);
+        return translated != null ? translated : new IllegalStateException(exception);
+    }
+
+    private List<AgentConfigPayload> queryDocuments(String where, String limit, Object... args) {
+        byte[] document = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(json_agg(agent_document ORDER BY agent_id), '[]'::json) FROM ("
+                        + AGENT_DOCUMENT_SELECT
+                        + where
+                        + " ORDER BY a.agent_id "
+                        + limit
+                        + ") agent_documents",
+                (rs, rowNum) -> rs.getBytes(1),
+                args);
+        try {
+            return objectMapper.readValue(document, AGENT_LIST_TYPE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("failed to decode agent config document", exception);
+        }
+    }
+
+    private final class AgentDocumentSpliterator extends Spliterators.AbstractSpliterator<byte[]> {
+
+        private final ResultSet resultSet;
+
+        private AgentDocumentSpliterator(ResultSet resultSet) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super byte[]> action) {
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                byte[] document = resultSet.getBytes("agent_document");
+                byte[] line = Arrays.copyOf(document, document.length + 1);
+                line[document.length] = '\n';
+                action.accept(line);
+                return true;
+            } catch (SQLException exception) {
+                throw translate(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.fun.agent.api.repository;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import java.util.List;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * {@link AgentConfigStore} over the blocking JDBC store and reader, running every call on a dedicated scheduler
+ * so the event loop never waits on a connection.
+ */
+public class AgentConfigOffloadingStore implements AgentConfigStore {
+
+    private final AgentConfigJdbcStore writer;
+    private final AgentConfigReader reader;
+    private final Scheduler scheduler;
+
+    public AgentConfigOffloadingStore(AgentConfigJdbcStore writer, AgentConfigReader reader, Scheduler scheduler) {
+        this.writer = writer;
+        this.reader = reader;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<List<AgentConfigPayload>> findAll() {
+        return Mono.fromCallable(reader::findAll).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<AgentConfigPayload> findById(String agentId) {
+        return Mono.fromCallable(() -> reader.findById(agentId).orElse(null)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<List<AgentConfigPayload>> findPage(String status, String owner, String afterAgentId, int limit) {
+        return Mono.fromCallable(() -> reader.findPage(status, owner, afterAgentId, limit)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<RevisionedAgentConfigs> findAllWithRevision() {
+        return Mono.fromCallable(reader::findAllWithRevision).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> replaceAll(List<AgentConfigPayload> agents, Long expectedRevision) {
+        return Mono.fromRunnable(() -> writer.replaceAll(agents, expectedRevision)).subscribeOn(scheduler).then();
+    }
+
+    @Override
+    public Mono<Boolean> updateSkillPrompt(
+            String agentId,
+            String skillId,
+            String skillName,
+            String promptTemplate,
+            Long expectedRevision) {
+        return Mono.fromCallable(() ->
+                        writer.updateSkillPrompt(agentId, skillId, skillName, promptTemplate, expectedRevision))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> upsertSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            String promptTemplate,
+            Long expectedRevision) {
+        return Mono.fromCallable(() ->
+                        writer.upsertSkillPromptVariant(agentId, skillId, variantKey, promptTemplate, expectedRevision))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> deleteSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            Long expectedRevision) {
+        return Mono.fromCallable(() -> writer.deleteSkillPromptVariant(agentId, skillId, variantKey, expectedRevision))
+                .subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,353 @@
+package com.fun.agent.api.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.repository.AgentConfigDiff.BatchWrite;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredAgent;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredConfig;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredSkill;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredVariant;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredWorkflow;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking {@link AgentConfigStore} on R2DBC. Reads run the same single-query JSON documents as
+ * {@link AgentConfigJsonReader}; a replace applies the {@link AgentConfigDiff} batches under the same table lock
+ * as {@link AgentConfigJdbcStore}, writes use the same revision compare-and-set statements, and every write
+ * notifies the change feed inside its own transaction.
+ */
+public class AgentConfigR2dbcStore implements AgentConfigStore, DisposableBean {
+
+    private static final TypeReference<List<AgentConfigPayload>> AGENT_LIST_TYPE = new TypeReference<>() {
+    };
+
+    private static final String SET_CONFIG_REVISION_SQL = indexedPlaceholders(AgentConfigDiff.SET_CONFIG_REVISION_SQL);
+    private static final String BUMP_AGENT_REVISION_SQL = indexedPlaceholders(AgentConfigDiff.BUMP_AGENT_REVISION_SQL);
+    private static final String AGENT_EXISTS_SQL = indexedPlaceholders(AgentConfigDiff.AGENT_EXISTS_SQL);
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final TransactionalOperator snapshotReadOperator;
+    private final AgentConfigChangeFeed changeFeed;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The pool and transaction manager stay private to this store: registered as beans they would displace the
+     * JDBC DataSource and the transaction manager that {@code @Transactional} relies on.
+     */
+    public AgentConfigR2dbcStore(
+            ConnectionPool connectionPool,
+            AgentConfigChangeFeed changeFeed,
+            ObjectMapper objectMapper) {
+        this.connectionPool = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        R2dbcTransactionManager transactionManager = new R2dbcTransactionManager(connectionPool);
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        DefaultTransactionDefinition snapshotRead = new DefaultTransactionDefinition();
+        snapshotRead.setReadOnly(true);
+        snapshotRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotReadOperator = TransactionalOperator.create(transactionManager, snapshotRead);
+        this.changeFeed = changeFeed;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<List<AgentConfigPayload>> findAll() {
+        return queryDocuments("", "", Map.of());
+    }
+
+    @Override
+    public Mono<AgentConfigPayload> findById(String agentId) {
+        return queryDocuments("WHERE a.agent_id = :agentId", "", Map.of("agentId", agentId))
+                .flatMap(agents -> Mono.justOrEmpty(agents.stream().findFirst()));
+    }
+
+    @Override
+    public Mono<List<AgentConfigPayload>> findPage(String status, String owner, String afterAgentId, int limit) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("status", status);
+        params.put("owner", owner);
+        params.put("afterAgentId", afterAgentId == null ? "" : afterAgentId);
+        params.put("limit", limit);
+        return queryDocuments(
+                """
+                WHERE (CAST(:status AS VARCHAR) IS NULL OR a.status = :status)
+                  AND (CAST(:owner AS VARCHAR) IS NULL OR a.owner_name = :owner)
+                  AND a.agent_id > :afterAgentId
+                """,
+                "LIMIT :limit",
+                params);
+    }
+
+    @Override
+    public Mono<RevisionedAgentConfigs> findAllWithRevision() {
+        return databaseClient.sql(AgentConfigDiff.SELECT_REVISION_SQL)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(revision -> findAll().map(agents -> new RevisionedAgentConfigs(revision, agents)))
+                .as(snapshotReadOperator::transactional);
+    }
+
+    @Override
+    public Mono<Void> replaceAll(List<AgentConfigPayload> agents, Long expectedRevision) {
+        StoredConfig desired = StoredConfig.of(agents);
+        return databaseClient.sql(AgentConfigDiff.REPLACE_LOCK_SQL).then()
+                .then(databaseClient.sql(AgentConfigDiff.SELECT_REVISION_SQL)
+                        .map(row -> row.get(0, Long.class))
+                        .one())
+                .flatMap(revision -> {
+                    if (expectedRevision != null && !expectedRevision.equals(revision)) {
+                        return Mono.error(AgentConfigDiff.configRevisionConflict(expectedRevision));
+                    }
+                    return loadStoredConfig()
+                            .flatMapMany(current -> Flux.fromIterable(AgentConfigDiff.between(current, desired)))
+                            .concatMap(this::executeBatch)
+                            .then(databaseClient.sql(SET_CONFIG_REVISION_SQL).bind(0, revision).then());
+                })
+                .then(notifyChange())
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<Boolean> updateSkillPrompt(
+            String agentId,
+            String skillId,
+            String skillName,
+            String promptTemplate,
+            Long expectedRevision) {
+        return agentWrite(agentId, expectedRevision, databaseClient.sql(
+                        """
+                        UPDATE agent_cfg.skills
+                        SET name = :name, prompt_template = :promptTemplate, updated_at = NOW()
+                        WHERE agent_id = :agentId AND skill_id = :skillId
+                        """)
+                .bind("name", skillName)
+                .bind("promptTemplate", promptTemplate)
+                .bind("agentId", agentId)
+                .bind("skillId", skillId)
+                .fetch()
+                .rowsUpdated());
+    }
+
+    @Override
+    public Mono<Boolean> upsertSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            String promptTemplate,
+            Long expectedRevision) {
+        return agentWrite(agentId, expectedRevision, databaseClient.sql(
+                        """
+                        INSERT INTO agent_cfg.skill_prompt_variants
+                        (agent_id, skill_id, variant_key, prompt_template, updated_at)
+                        VALUES (:agentId, :skillId, :variantKey, :promptTemplate, NOW())
+                        ON CONFLICT (agent_id, skill_id, variant_key)
+                        DO UPDATE SET prompt_template = EXCLUDED.prompt_template, updated_at = NOW()
+                        """)
+                .bind("agentId", agentId)
+                .bind("skillId", skillId)
+                .bind("variantKey", variantKey)
+                .bind("promptTemplate", promptTemplate)
+                .fetch()
+                .rowsUpdated());
+    }
+
+    @Override
+    public Mono<Boolean> deleteSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            Long expectedRevision) {
+        return agentWrite(agentId, expectedRevision, databaseClient.sql(
+                        """
+                        DELETE FROM agent_cfg.skill_prompt_variants
+                        WHERE agent_id = :agentId AND skill_id = :skillId AND variant_key = :variantKey
+                        """)
+                .bind("agentId", agentId)
+                .bind("skillId", skillId)
+                .bind("variantKey", variantKey)
+                .fetch()
+                .rowsUpdated());
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+    private Mono<List<AgentConfigPayload>> queryDocuments(String where, String limit, Map<String, Object> params) {
+        GenericExecuteSpec spec = databaseClient.sql(
+                "SELECT COALESCE(json_agg(agent_document ORDER BY agent_id), '[]'::json) FROM ("
+                        + AgentConfigJsonReader.AGENT_DOCUMENT_SELECT
+                        + where
+                        + " ORDER BY a.agent_id "
+                        + limit
+                        + ") agent_documents");
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = param.getValue() == null
+                    ? spec.bindNull(param.getKey(), String.class)
+                    : spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(row -> row.get(0, byte[].class)).one().map(this::decode);
+    }
+
+    private List<AgentConfigPayload> decode(byte[] document) {
+        try {
+            return objectMapper.readValue(document, AGENT_LIST_TYPE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("failed to decode agent config document", exception);
+        }
+    }
+
+    private Mono<StoredConfig> loadStoredConfig() {
+        StoredConfig stored = new StoredConfig();
+        return databaseClient.sql(AgentConfigDiff.SELECT_AGENTS_SQL)
+                .map(row -> new StoredAgent(
+                        row.get("agent_id", String.class),
+                        row.get("display_name", String.class),
+                        row.get("owner_name", String.class),
+                        row.get("status", String.class),
+                        row.get("description", String.class),
+                        row.get("default_workflow_id", String.class)))
+                .all()
+                .doOnNext(stored::add)
+                .thenMany(databaseClient.sql(AgentConfigDiff.SELECT_WORKFLOWS_SQL)
+                        .map(row -> new StoredWorkflow(
+                                row.get("agent_id", String.class),
+                                row.get("workflow_id", String.class),
+                                row.get("name", String.class),
+                                row.get("description", String.class),
+                                row.get("model_profile", String.class),
+                                row.get("sort_order", Integer.class)))
+                        .all()
+                        .doOnNext(stored::add))
+                .thenMany(databaseClient.sql(AgentConfigDiff.SELECT_SKILLS_SQL)
+                        .map(row -> new StoredSkill(
+                                row.get("agent_id", String.class),
+                                row.get("skill_id", String.class),
+                                row.get("name", String.class),
+                                row.get("prompt_template", String.class),
+                                row.get("sort_order", Integer.class)))
+                        .all()
+                        .doOnNext(stored::add))
+                .thenMany(databaseClient.sql(AgentConfigDiff.SELECT_VARIANTS_SQL)
+                        .map(row -> new StoredVariant(
+                                row.get("agent_id", String.class),
+                                row.get("skill_id", String.class),
+                                row.get("variant_key", String.class),
+                                row.get("prompt_template", String.class)))
+                        .all()
+                        .doOnNext(stored::add))
+                .then(Mono.just(stored));
+    }
+
+    /**
+     * Sends one diff batch as a single multi-binding statement on the transaction's connection, so Postgres gets
+     * the rows pipelined rather than one round trip each.
+     */
+    private Mono<Void> executeBatch(BatchWrite write) {
+        String sql = indexedPlaceholders(write.sql());
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    List<Object[]> rows = write.rows();
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Object[] row = rows.get(i);
+                        for (int index = 0; index < row.length; index++) {
+                            if (row[index] == null) {
+                                statement.bindNull(index, String.class);
+                            } else {
+                                statement.bind(index, row[index]);
+                            }
+                        }
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .then();
+    }
+
+    /**
+     * Runs a single-agent write in one transaction: compare-and-set on the agent's revision first, then
+     * {@code write}. When the agent is missing or {@code write} changes nothing the transaction is rolled back and
+     * the result is {@code false}; otherwise the change feed is notified. The agent revision bump alone moves the
+     * global revision on, so writes to different agents share no row.
+     */
+    private Mono<Boolean> agentWrite(String agentId, Long expectedRevision, Mono<Long> write) {
+        return transactionalOperator.execute(status -> bumpAgentRevision(agentId, expectedRevision)
+                        .flatMap(found -> found ? write : Mono.just(0L))
+                        .flatMap(rowsChanged -> {
+                            if (rowsChanged == 0) {
+                                status.setRollbackOnly();
+                                return Mono.just(false);
+                            }
+                            return notifyChange().thenReturn(true);
+                        }))
+                .singleOrEmpty();
+    }
+
+    private Mono<Boolean> bumpAgentRevision(String agentId, Long expectedRevision) {
+        return bindRevision(databaseClient.sql(BUMP_AGENT_REVISION_SQL).bind(0, agentId), 1, expectedRevision)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(bumped -> {
+                    if (bumped > 0 || expectedRevision == null) {
+                        return Mono.just(bumped > 0);
+                    }
+                    return databaseClient.sql(AGENT_EXISTS_SQL)
+                            .bind(0, agentId)
+                            .map(row -> row.get(0, Long.class))
+                            .one()
+                            .flatMap(agents -> agents > 0
+                                    ? Mono.error(AgentConfigDiff.agentRevisionConflict(agentId, expectedRevision))
+                                    : Mono.just(false));
+                });
+    }
+
+    private static GenericExecuteSpec bindRevision(GenericExecuteSpec spec, int index, Long revision) {
+        return revision == null ? spec.bindNull(index, Long.class) : spec.bind(index, revision);
+    }
+
+    private Mono<Void> notifyChange() {
+        return databaseClient.sql("SELECT pg_notify(:channel, :payload)")
+                .bind("channel", changeFeed.channel())
+                .bind("payload", changeFeed.nodeId())
+                .then();
+    }
+
+    /**
+     * Rewrites the JDBC-style {@code ?} placeholders of the shared diff statements into Postgres' {@code $n}.
+     */
+    private static String indexedPlaceholders(String sql) {
+        StringBuilder rewritten = new StringBuilder(sql.length() + 16);
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                rewritten.append('$').append(++index);
+            } else {
+                rewritten.append(c);
+            }
+        }
+        return rewritten.toString();
+    }
+}
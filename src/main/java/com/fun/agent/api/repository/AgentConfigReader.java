@@ -0,0 +1,23 @@
+package com.fun.agent.api.repository;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read side of the agent config tables. Implementations are picked by {@code app.agent-config.read-mode}.
+ */
+public interface AgentConfigReader {
+
+    List<AgentConfigPayload> findAll();
+
+    Optional<AgentConfigPayload> findById(String agentId);
+
+    List<AgentConfigPayload> findPage(String status, String owner, String afterAgentId, int limit);
+
+    /**
+     * Every agent plus the global config revision (bumped by every committed write), read in one read-only
+     * {@code REPEATABLE READ} transaction so the revision labels exactly the rows returned.
+     */
+    RevisionedAgentConfigs findAllWithRevision();
+}
@@ -0,0 +1,50 @@
+package com.fun.agent.api.repository;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import java.util.List;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive access to the agent config tables used by the service. Implementations are picked by
+ * {@code app.agent-config.store}: {@code jdbc} offloads the blocking stores to the JDBC scheduler, {@code r2dbc}
+ * talks to Postgres without blocking a thread.
+ *
+ * <p>Writes take an optional expected revision: the global config revision for {@link #replaceAll}, the agent's
+ * revision for the single-agent writes. {@code null} writes unconditionally; a mismatch fails with
+ * {@link org.springframework.dao.OptimisticLockingFailureException} and nothing is written. The single-agent writes
+ * complete with {@code false} when the agent (or the skill or variant they address) does not exist.
+ */
+public interface AgentConfigStore {
+
+    Mono<List<AgentConfigPayload>> findAll();
+
+    /**
+     * Completes empty when the agent does not exist.
+     */
+    Mono<AgentConfigPayload> findById(String agentId);
+
+    Mono<List<AgentConfigPayload>> findPage(String status, String owner, String afterAgentId, int limit);
+
+    /**
+     * Every agent plus the global config revision, both from one database snapshot.
+     */
+    Mono<RevisionedAgentConfigs> findAllWithRevision();
+
+    Mono<Void> replaceAll(List<AgentConfigPayload> agents, Long expectedRevision);
+
+    Mono<Boolean> updateSkillPrompt(
+            String agentId,
+            String skillId,
+            String skillName,
+            String promptTemplate,
+            Long expectedRevision);
+
+    Mono<Boolean> upsertSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            String promptTemplate,
+            Long expectedRevision);
+
+    Mono<Boolean> deleteSkillPromptVariant(String agentId, String skillId, String variantKey, Long expectedRevision);
+}
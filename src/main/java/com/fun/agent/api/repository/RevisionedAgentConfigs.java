@@ -0,0 +1,11 @@
+package com.fun.agent.api.repository;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import java.util.List;
+
+/**
+ * The whole agent config together with the global revision it was committed under, both read from one database
+ * snapshot.
+ */
+public record RevisionedAgentConfigs(long revision, List<AgentConfigPayload> agents) {
+}
@@ -0,0 +1,40 @@
+package com.fun.agent.api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized {@code GET /config/agents} body for one snapshot revision. The ETag is the global config revision
+ * stored in Postgres, so every node serving the same config hands out the same tag and clients can send it back
+ * as {@code If-Match} on a replace. It carries the {@value #ETAG_PREFIX} prefix so it can never be mistaken for
+ * the ETag of a single agent.
+ */
+public record AgentConfigDocument(long revision, byte[] json, byte[] gzip, String etag, String gzipEtag) {
+
+    public static final String ETAG_PREFIX = "cfg-";
+
+    public static AgentConfigDocument encode(long revision, byte[] json, boolean gzipEnabled) {
+        return new AgentConfigDocument(
+                revision,
+                json,
+                gzipEnabled ? gzip(json) : null,
+                "\"" + ETAG_PREFIX + revision + "\"",
+                "\"" + ETAG_PREFIX + revision + "-gzip\"");
+    }
+
+    public boolean hasGzip() {
+        return gzip != null;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(content);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.SkillConfigPayload;
+import com.fun.agent.api.model.config.WorkflowConfigPayload;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable hash index over one {@link AgentConfigSnapshot} for the task submission path: lookups by agent, by
+ * (agent, workflow) and by (agent, skill, variant) are a couple of map hits, with no list scans.
+ *
+ * <p>{@link #build} takes the index of the previous revision and reuses the entry of every agent whose config did
+ * not change, so a write re-indexes only the agents it touched.
+ */
+public final class AgentConfigIndex {
+
+    static final AgentConfigIndex EMPTY = new AgentConfigIndex(-1, Map.of());
+
+    private final long revision;
+    private final Map<String, AgentEntry> agents;
+
+    private AgentConfigIndex(long revision, Map<String, AgentEntry> agents) {
+        this.revision = revision;
+        this.agents = agents;
+    }
+
+    static AgentConfigIndex build(AgentConfigSnapshot snapshot, AgentConfigIndex previous) {
+        Map<String, AgentEntry> agents = new HashMap<>(snapshot.agents().size() * 2);
+        for (AgentConfigPayload agent : snapshot.agents()) {
+            AgentEntry existing = previous.agents.get(agent.id());
+            agents.put(agent.id(), existing != null && existing.config.equals(agent) ? existing : AgentEntry.of(agent));
+        }
+        return new AgentConfigIndex(snapshot.revision(), Map.copyOf(agents));
+    }
+
+    public long revision() {
+        return revision;
+    }
+
+    /**
+     * The agent, or {@code null} when it is not configured.
+     */
+    public AgentEntry agent(String agentId) {
+        return agents.get(agentId);
+    }
+
+    public static final class AgentEntry {
+
+        private final AgentConfigPayload config;
+        private final Map<String, WorkflowConfigPayload> workflows;
+        private final Map<String, SkillEntry> skills;
+
+        private AgentEntry(
+                AgentConfigPayload config,
+                Map<String, WorkflowConfigPayload> workflows,
+                Map<String, SkillEntry> skills) {
+            this.config = config;
+            this.workflows = workflows;
+            this.skills = skills;
+        }
+
+        private static AgentEntry of(AgentConfigPayload agent) {
+            Map<String, WorkflowConfigPayload> workflows = new HashMap<>(agent.workflows().size() * 2);
+            for (WorkflowConfigPayload workflow : agent.workflows()) {
+                workflows.put(workflow.id(), workflow);
+            }
+            Map<String, SkillEntry> skills = new HashMap<>(agent.skills().size() * 2);
+            for (SkillConfigPayload skill : agent.skills()) {
+                skills.put(skill.id(), new SkillEntry(skill));
+            }
+            return new AgentEntry(agent, Map.copyOf(workflows), Map.copyOf(skills));
+        }
+
+        public AgentConfigPayload config() {
+            return config;
+        }
+
+        public boolean isOffline() {
+            return "OFFLINE".equals(config.status());
+        }
+
+        /**
+         * The default workflow id, or {@code null} when the agent has none.
+         */
+        public String defaultWorkflowId() {
+            String defaultWorkflowId = config.defaultWorkflowId();
+            return defaultWorkflowId == null || defaultWorkflowId.isEmpty() ? null : defaultWorkflowId;
+        }
+
+        public boolean hasWorkflow(String workflowId) {
+            return workflows.containsKey(workflowId);
+        }
+
+        /**
+         * The skill, or {@code null} when the agent does not have it.
+         */
+        public SkillEntry skill(String skillId) {
+            return skills.get(skillId);
+        }
+    }
+
+    public static final class SkillEntry {
+
+        private final SkillConfigPayload config;
+
+        private SkillEntry(SkillConfigPayload config) {
+            this.config = config;
+        }
+
+        public SkillConfigPayload config() {
+            return config;
+        }
+
+        public boolean hasVariant(String variantKey) {
+            return config.promptVariants().containsKey(variantKey);
+        }
+
+        /**
+         * The template for {@code variantKey}, or the skill's own template when {@code variantKey} is {@code null}
+         * or not a variant of this skill.
+         */
+        public String promptTemplate(String variantKey) {
+            String variant = variantKey == null ? null : config.promptVariants().get(variantKey);
+            return variant != null ? variant : config.promptTemplate();
+        }
+    }
+}
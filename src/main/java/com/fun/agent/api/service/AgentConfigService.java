@@ -1,20 +1,33 @@
 package com.fun.agent.api.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fun.agent.api.config.AgentConfigProperties;
+import com.fun.agent.api.model.config.AgentConfigPageResponse;
 import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.AgentConfigsResponse;
 import com.fun.agent.api.model.config.SkillPromptVariantPayload;
 import com.fun.agent.api.model.config.SkillConfigPayload;
 import com.fun.agent.api.model.config.WorkflowConfigPayload;
-import com.fun.agent.api.repository.AgentConfigJdbcStore;
+import com.fun.agent.api.repository.AgentConfigChangeFeed;
+import com.fun.agent.api.repository.AgentConfigJsonReader;
+import com.fun.agent.api.repository.AgentConfigStore;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.Scheduler;
 import org.springframework.http.HttpStatus;
 
 @Service
@@ -22,102 +35,347 @@ public class AgentConfigService {
 
     private static final Set<String> ALLOWED_STATUS = Set.of("ONLINE", "DEGRADED", "OFFLINE");
     private static final String VARIANT_KEY_REGEX = "^[a-z0-9_]+$";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
 
-    private final AgentConfigJdbcStore store;
+    private final AgentConfigStore store;
+    private final AgentConfigJsonReader jsonReader;
+    private final ObjectMapper objectMapper;
+    private final Scheduler jdbcScheduler;
+    private final boolean snapshotEnabled;
+    private final boolean gzipEnabled;
+    private final int exportFetchSize;
+    private final Semaphore exportPermits;
+    private final AtomicReference<AgentConfigSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<AgentConfigDocument> document = new AtomicReference<>();
+    private final AtomicReference<AgentConfigIndex> index = new AtomicReference<>(AgentConfigIndex.EMPTY);
 
-    public AgentConfigService(AgentConfigJdbcStore store) {
+    public AgentConfigService(
+            AgentConfigStore store,
+            AgentConfigJsonReader jsonReader,
+            AgentConfigChangeFeed changeFeed,
+            ObjectMapper objectMapper,
+            @Qualifier("jdbcScheduler") Scheduler jdbcScheduler,
+            AgentConfigProperties properties) {
         this.store = store;
+        this.jsonReader = jsonReader;
+        this.objectMapper = objectMapper;
+        this.jdbcScheduler = jdbcScheduler;
+        this.snapshotEnabled = properties.snapshotEnabled();
+        this.gzipEnabled = properties.responseGzipEnabled();
+        this.exportFetchSize = properties.exportFetchSize();
+        this.exportPermits = new Semaphore(Math.max(1, properties.exportMaxConcurrency()));
+        if (snapshotEnabled) {
+            changeFeed.onRemoteChange(() -> reloadSnapshot().block());
+        }
     }
 
     public Mono<List<AgentConfigPayload>> listAgentConfigs() {
-        return Mono.fromCallable(store::findAll)
-                .subscribeOn(Schedulers.boundedElastic());
-    }
-
-    public Mono<List<AgentConfigPayload>> replaceAll(List<AgentConfigPayload> rawAgents) {
-        return Mono.fromCallable(() -> {
-                    List<AgentConfigPayload> sanitized = sanitizeAgents(rawAgents);
-                    store.replaceAll(sanitized);
-                    return store.findAll();
-                })
-                .subscribeOn(Schedulers.boundedElastic());
-    }
-
-    public Mono<SkillConfigPayload> updateSkillPrompt(String agentId, String skillId, String name, String promptTemplate) {
-        return Mono.fromCallable(() -> {
-                    String normalizedAgentId = normalizeRequired(agentId);
-                    String normalizedSkillId = normalizeRequired(skillId);
-                    String normalizedName = normalizeOptional(name, normalizedSkillId);
-                    String normalizedPrompt = normalizeOptional(promptTemplate, "");
-                    if (normalizedPrompt.isEmpty()) {
-                        throw new IllegalArgumentException("promptTemplate must not be empty");
-                    }
-
-                    boolean updated = store.updateSkillPrompt(
+        return currentSnapshot().map(AgentConfigSnapshot::agents);
+    }
+
+    public Mono<AgentConfigSnapshot> currentSnapshot() {
+        AgentConfigSnapshot current = snapshot.get();
+        if (current != null) {
+            return Mono.just(current);
+        }
+        return reloadSnapshot();
+    }
+
+    public Mono<AgentConfigPayload> getAgentConfig(String agentId) {
+        return Mono.defer(() -> {
+            String normalizedAgentId = normalizeRequired(agentId);
+            AgentConfigSnapshot current = snapshot.get();
+            Mono<AgentConfigPayload> lookup = current != null
+                    ? Mono.justOrEmpty(current.findAgent(normalizedAgentId))
+                    : store.findById(normalizedAgentId);
+            return lookup.switchIfEmpty(Mono.error(() -> new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    "agent not found: " + normalizedAgentId)));
+        });
+    }
+
+    public Mono<AgentConfigPageResponse> findAgentConfigs(String status, String owner, String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            String normalizedStatus = normalizeStatusFilter(status);
+            String normalizedOwner = normalizeOptional(owner, null);
+            String afterAgentId = decodeCursor(cursor);
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+
+            AgentConfigSnapshot current = snapshot.get();
+            Mono<List<AgentConfigPayload>> page = current != null
+                    ? Mono.just(pageFromSnapshot(current, normalizedStatus, normalizedOwner, afterAgentId, pageSize))
+                    : store.findPage(normalizedStatus, normalizedOwner, afterAgentId, pageSize);
+            return page.map(agents -> {
+                String nextCursor = agents.size() < pageSize ? null : encodeCursor(agents.get(agents.size() - 1).id());
+                return new AgentConfigPageResponse(agents, nextCursor);
+            });
+        });
+    }
+
+    /**
+     * Streams every agent as one NDJSON line straight from a database cursor, so memory stays flat regardless of
+     * fleet size. Always reads the database, bypassing the snapshot.
+     * <p>
+     * The cursor keeps its connection until the client has read everything, outside the offload executor's limit,
+     * so at most {@code export-max-concurrency} exports run at once and the next one is refused with {@code 503}.
+     */
+    public Flux<byte[]> exportAgentConfigs() {
+        return Flux.defer(() -> {
+            if (!exportPermits.tryAcquire()) {
+                return Flux.error(new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE,
+                        "too many agent config exports running, retry later"));
+            }
+            return Flux.fromStream(() -> jsonReader.streamAgentDocuments(exportFetchSize))
+                    .subscribeOn(jdbcScheduler)
+                    .doFinally(signal -> exportPermits.release());
+        });
+    }
+
+    /**
+     * Returns the serialized config for the current snapshot. Encoding happens at most once per revision; every
+     * other caller gets the cached bytes.
+     */
+    public Mono<AgentConfigDocument> currentDocument() {
+        return currentSnapshot().map(this::documentFor);
+    }
+
+    /**
+     * Lookup index for the current snapshot. It is rebuilt right after each snapshot swap, reusing the entries
+     * of agents that did not change, so callers normally get the cached instance.
+     */
+    public Mono<AgentConfigIndex> currentIndex() {
+        return currentSnapshot().map(this::indexFor);
+    }
+
+    public boolean snapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    /**
+     * Replaces the whole config. With {@code expectedRevision} (the global revision from a previous read) the write
+     * only applies if no other write committed since; otherwise it fails with {@code 409}. Returns the config as
+     * reloaded right after the write.
+     */
+    public Mono<AgentConfigSnapshot> replaceAll(List<AgentConfigPayload> rawAgents, Long expectedRevision) {
+        return Mono.fromCallable(() -> sanitizeAgents(rawAgents))
+                .flatMap(agents -> store.replaceAll(agents, expectedRevision))
+                .then(reloadSnapshot());
+    }
+
+    /**
+     * Updates one skill. With {@code expectedRevision} (the agent's revision from a previous read) the write only
+     * applies if the agent did not change since; otherwise it fails with {@code 409}.
+     */
+    public Mono<SkillConfigPayload> updateSkillPrompt(
+            String agentId,
+            String skillId,
+            String name,
+            String promptTemplate,
+            Long expectedRevision) {
+        return Mono.defer(() -> {
+            String normalizedAgentId = normalizeRequired(agentId);
+            String normalizedSkillId = normalizeRequired(skillId);
+            String normalizedName = normalizeOptional(name, normalizedSkillId);
+            String normalizedPrompt = normalizeOptional(promptTemplate, "");
+            if (normalizedPrompt.isEmpty()) {
+                throw new IllegalArgumentException("promptTemplate must not be empty");
+            }
+
+            return store.updateSkillPrompt(
                             normalizedAgentId,
                             normalizedSkillId,
                             normalizedName,
-                            normalizedPrompt);
-                    if (!updated) {
-                        throw new ResponseStatusException(
-                                HttpStatus.NOT_FOUND,
-                                "skill not found for agent: " + normalizedAgentId + "/" + normalizedSkillId);
-                    }
-                    return new SkillConfigPayload(normalizedSkillId, normalizedName, normalizedPrompt, Map.of());
-                })
-                .subscribeOn(Schedulers.boundedElastic());
+                            normalizedPrompt,
+                            expectedRevision)
+                    .flatMap(updated -> {
+                        if (!updated) {
+                            return Mono.error(new ResponseStatusException(
+                                    HttpStatus.NOT_FOUND,
+                                    "skill not found for agent: " + normalizedAgentId + "/" + normalizedSkillId));
+                        }
+                        return refreshSnapshotAfterWrite().thenReturn(
+                                new SkillConfigPayload(normalizedSkillId, normalizedName, normalizedPrompt, Map.of()));
+                    });
+        });
     }
 
     public Mono<SkillPromptVariantPayload> upsertSkillPromptVariant(
             String agentId,
             String skillId,
             String variantKey,
-            String promptTemplate) {
-        return Mono.fromCallable(() -> {
-                    String normalizedAgentId = normalizeRequired(agentId);
-                    String normalizedSkillId = normalizeRequired(skillId);
-                    String normalizedVariantKey = normalizeVariantKey(variantKey);
-                    String normalizedPrompt = normalizeOptional(promptTemplate, "");
-                    if (normalizedPrompt.isEmpty()) {
-                        throw new IllegalArgumentException("promptTemplate must not be empty");
-                    }
-                    store.upsertSkillPromptVariant(
+            String promptTemplate,
+            Long expectedRevision) {
+        return Mono.defer(() -> {
+            String normalizedAgentId = normalizeRequired(agentId);
+            String normalizedSkillId = normalizeRequired(skillId);
+            String normalizedVariantKey = normalizeVariantKey(variantKey);
+            String normalizedPrompt = normalizeOptional(promptTemplate, "");
+            if (normalizedPrompt.isEmpty()) {
+                throw new IllegalArgumentException("promptTemplate must not be empty");
+            }
+            return store.upsertSkillPromptVariant(
                             normalizedAgentId,
                             normalizedSkillId,
                             normalizedVariantKey,
-                            normalizedPrompt);
-                    return new SkillPromptVariantPayload(
+                            normalizedPrompt,
+                            expectedRevision)
+                    .flatMap(upserted -> {
+                        if (!upserted) {
+                            return Mono.error(new ResponseStatusException(
+                                    HttpStatus.NOT_FOUND,
+                                    "skill not found for agent: " + normalizedAgentId + "/" + normalizedSkillId));
+                        }
+                        return refreshSnapshotAfterWrite().thenReturn(new SkillPromptVariantPayload(
+                                normalizedAgentId,
+                                normalizedSkillId,
+                                normalizedVariantKey,
+                                normalizedPrompt));
+                    });
+        });
+    }
+
+    public Mono<Void> deleteSkillPromptVariant(
+            String agentId,
+            String skillId,
+            String variantKey,
+            Long expectedRevision) {
+        return Mono.defer(() -> {
+            String normalizedAgentId = normalizeRequired(agentId);
+            String normalizedSkillId = normalizeRequired(skillId);
+            String normalizedVariantKey = normalizeVariantKey(variantKey);
+            return store.deleteSkillPromptVariant(
                             normalizedAgentId,
                             normalizedSkillId,
                             normalizedVariantKey,
-                            normalizedPrompt);
-                })
-                .subscribeOn(Schedulers.boundedElastic());
+                            expectedRevision)
+                    .flatMap(deleted -> {
+                        if (!deleted) {
+                            return Mono.error(new ResponseStatusException(
+                                    HttpStatus.NOT_FOUND,
+                                    "variant not found for skill: "
+                                            + normalizedAgentId
+                                            + "/"
+                                            + normalizedSkillId
+                                            + "/"
+                                            + normalizedVariantKey));
+                        }
+                        return refreshSnapshotAfterWrite();
+                    });
+        });
     }
 
-    public Mono<Void> deleteSkillPromptVariant(String agentId, String skillId, String variantKey) {
-        return Mono.fromCallable(() -> {
-                    String normalizedAgentId = normalizeRequired(agentId);
-                    String normalizedSkillId = normalizeRequired(skillId);
-                    String normalizedVariantKey = normalizeVariantKey(variantKey);
-                    boolean deleted = store.deleteSkillPromptVariant(
-                            normalizedAgentId,
-                            normalizedSkillId,
-                            normalizedVariantKey);
-                    if (!deleted) {
-                        throw new ResponseStatusException(
-                                HttpStatus.NOT_FOUND,
-                                "variant not found for skill: "
-                                        + normalizedAgentId
-                                        + "/"
-                                        + normalizedSkillId
-                                        + "/"
-                                        + normalizedVariantKey);
-                    }
-                    return null;
-                })
-                .subscribeOn(Schedulers.boundedElastic())
-                .then();
+    /**
+     * Loads the config and swaps it in unless a newer snapshot got there first. The snapshot revision is the global
+     * config revision read in the same database snapshot as the agents, so one revision always stands for the same
+     * content on every node and a load that began after a commit always wins over one that began before it.
+     */
+    private Mono<AgentConfigSnapshot> reloadSnapshot() {
+        return store.findAllWithRevision()
+                .map(loaded -> install(new AgentConfigSnapshot(loaded.revision(), loaded.agents())));
+    }
+
+    private AgentConfigSnapshot install(AgentConfigSnapshot loaded) {
+        if (!snapshotEnabled) {
+            return loaded;
+        }
+        AgentConfigSnapshot current = snapshot.accumulateAndGet(loaded, (existing, candidate) ->
+                existing == null || candidate.revision() > existing.revision() ? candidate : existing);
+        documentFor(current);
+        indexFor(current);
+        return loaded;
+    }
+
+    private AgentConfigDocument documentFor(AgentConfigSnapshot current) {
+        AgentConfigDocument cached = document.get();
+        if (cached != null && cached.revision() == current.revision()) {
+            return cached;
+        }
+        AgentConfigDocument encoded = encodeDocument(current);
+        document.accumulateAndGet(encoded, (existing, candidate) ->
+                existing == null || candidate.revision() > existing.revision() ? candidate : existing);
+        return encoded;
+    }
+
+    private AgentConfigIndex indexFor(AgentConfigSnapshot current) {
+        AgentConfigIndex cached = index.get();
+        if (cached.revision() == current.revision()) {
+            return cached;
+        }
+        AgentConfigIndex built = AgentConfigIndex.build(current, cached);
+        index.accumulateAndGet(built, (existing, candidate) ->
+                candidate.revision() > existing.revision() ? candidate : existing);
+        return built;
+    }
+
+    private AgentConfigDocument encodeDocument(AgentConfigSnapshot current) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new AgentConfigsResponse(current.agents()));
+            return AgentConfigDocument.encode(current.revision(), json, gzipEnabled);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("failed to serialize agent config", exception);
+        }
+    }
+
+    private List<AgentConfigPayload> pageFromSnapshot(
+            AgentConfigSnapshot current,
+            String status,
+            String owner,
+            String afterAgentId,
+            int pageSize) {
+        List<AgentConfigPayload> agents = current.agents();
+        int start = 0;
+        if (afterAgentId != null) {
+            int position = current.positionOf(afterAgentId);
+            if (position >= 0) {
+                start = position + 1;
+            } else {
+                while (start < agents.size() && agents.get(start).id().compareTo(afterAgentId) <= 0) {
+                    start++;
+                }
+            }
+        }
+        List<AgentConfigPayload> page = new ArrayList<>(Math.min(pageSize, agents.size()));
+        for (int i = start; i < agents.size() && page.size() < pageSize; i++) {
+            AgentConfigPayload agent = agents.get(i);
+            if ((status == null || status.equals(agent.status())) && (owner == null || owner.equals(agent.owner()))) {
+                page.add(agent);
+            }
+        }
+        return page;
+    }
+
+    private String normalizeStatusFilter(String status) {
+        String normalized = normalizeOptional(status, null);
+        if (normalized == null) {
+            return null;
+        }
+        normalized = normalized.toUpperCase();
+        if (!ALLOWED_STATUS.contains(normalized)) {
+            throw new IllegalArgumentException("status must be one of " + ALLOWED_STATUS);
+        }
+        return normalized;
+    }
+
+    private String encodeCursor(String agentId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(agentId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursor(String cursor) {
+        String normalized = normalizeOptional(cursor, null);
+        if (normalized == null) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(normalized), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("cursor is invalid");
+        }
+    }
+
+    private Mono<Void> refreshSnapshotAfterWrite() {
+        return snapshotEnabled ? reloadSnapshot().then() : Mono.empty();
     }
 
     private List<AgentConfigPayload> sanitizeAgents(List<AgentConfigPayload> rawAgents) {
@@ -155,7 +413,8 @@ public class AgentConfigService {
                 description,
                 defaultWorkflowId,
                 workflows,
-                skills);
+                skills,
+                null);
     }
 
     private List<WorkflowConfigPayload> sanitizeWorkflows(List<WorkflowConfigPayload> rawWorkflows) {
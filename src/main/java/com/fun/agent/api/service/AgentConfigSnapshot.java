@@ -0,0 +1,79 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.SkillConfigPayload;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of the persisted agent config at a given revision. Revisions only grow, so a snapshot with a
+ * higher revision always reflects at least every write that a lower one did.
+ */
+public final class AgentConfigSnapshot {
+
+    private final long revision;
+    private final List<AgentConfigPayload> agents;
+    private final Map<String, Integer> positionsById;
+
+    public AgentConfigSnapshot(long revision, List<AgentConfigPayload> agents) {
+        this.revision = revision;
+        this.agents = freeze(agents);
+        Map<String, Integer> positions = new HashMap<>(this.agents.size() * 2);
+        for (int i = 0; i < this.agents.size(); i++) {
+            positions.put(this.agents.get(i).id(), i);
+        }
+        this.positionsById = Collections.unmodifiableMap(positions);
+    }
+
+    public long revision() {
+        return revision;
+    }
+
+    public List<AgentConfigPayload> agents() {
+        return agents;
+    }
+
+    public Optional<AgentConfigPayload> findAgent(String agentId) {
+        Integer position = positionsById.get(agentId);
+        return position == null ? Optional.empty() : Optional.of(agents.get(position));
+    }
+
+    /**
+     * Position of {@code agentId} in {@link #agents()}, which keeps the database {@code ORDER BY agent_id}, or
+     * {@code -1} when the agent is not part of this snapshot.
+     */
+    public int positionOf(String agentId) {
+        Integer position = positionsById.get(agentId);
+        return position == null ? -1 : position;
+    }
+
+    private static List<AgentConfigPayload> freeze(List<AgentConfigPayload> agents) {
+        List<AgentConfigPayload> frozen = new ArrayList<>(agents.size());
+        for (AgentConfigPayload agent : agents) {
+            List<SkillConfigPayload> skills = new ArrayList<>(agent.skills().size());
+            for (SkillConfigPayload skill : agent.skills()) {
+                skills.add(new SkillConfigPayload(
+                        skill.id(),
+                        skill.name(),
+                        skill.promptTemplate(),
+                        Collections.unmodifiableMap(new LinkedHashMap<>(skill.promptVariants()))));
+            }
+            frozen.add(new AgentConfigPayload(
+                    agent.id(),
+                    agent.name(),
+                    agent.owner(),
+                    agent.status(),
+                    agent.description(),
+                    agent.defaultWorkflowId(),
+                    List.copyOf(agent.workflows()),
+                    Collections.unmodifiableList(skills),
+                    agent.revision()));
+        }
+        return Collections.unmodifiableList(frozen);
+    }
+}
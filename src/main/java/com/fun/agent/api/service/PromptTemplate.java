@@ -0,0 +1,91 @@
+package com.fun.agent.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A skill prompt parsed once into literal text and {@code {{name}}} / {@code {{a.b}}} placeholders, so rendering
+ * is a single pass over prebuilt segments. Placeholders are looked up in the task's {@code input_payload}, following
+ * nested objects for dotted names; a missing value renders as nothing. Anything between braces that is not a valid
+ * name is kept as literal text.
+ */
+final class PromptTemplate {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-z0-9_\\-]+(\\.[A-Za-z0-9_\\-]+)*$");
+
+    private final String[] literals;
+    private final String[][] placeholders;
+    private final int sizeHint;
+
+    private PromptTemplate(String[] literals, String[][] placeholders, int sizeHint) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.sizeHint = sizeHint;
+    }
+
+    static PromptTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String[]> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf("{{", position);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) {
+                literal.append(source, position, source.length());
+                break;
+            }
+            String name = source.substring(open + 2, close).trim();
+            if (!NAME_PATTERN.matcher(name).matches()) {
+                literal.append(source, position, open + 2);
+                position = open + 2;
+                continue;
+            }
+            literal.append(source, position, open);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            placeholders.add(name.split("\\."));
+            position = close + 2;
+        }
+        literals.add(literal.toString());
+        return new PromptTemplate(
+                literals.toArray(String[]::new),
+                placeholders.toArray(String[][]::new),
+                source.length());
+    }
+
+    /**
+     * Renders with values from {@code input}; non-text values (numbers, booleans, objects) go through
+     * {@code formatter}.
+     */
+    String render(Map<String, Object> input, Function<Object, String> formatter) {
+        if (placeholders.length == 0) {
+            return literals[0];
+        }
+        StringBuilder rendered = new StringBuilder(sizeHint + 64);
+        for (int i = 0; i < placeholders.length; i++) {
+            rendered.append(literals[i]);
+            Object value = lookup(input, placeholders[i]);
+            if (value instanceof String text) {
+                rendered.append(text);
+            } else if (value != null) {
+                rendered.append(formatter.apply(value));
+            }
+        }
+        return rendered.append(literals[placeholders.length]).toString();
+    }
+
+    private static Object lookup(Map<String, Object> input, String[] path) {
+        Object current = input;
+        for (String segment : path) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(segment);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,115 @@
+package com.fun.agent.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fun.agent.api.config.PlaneProperties;
+import com.fun.agent.api.model.CreateTaskRequest;
+import com.fun.agent.api.service.AgentConfigIndex.AgentEntry;
+import com.fun.agent.api.service.AgentConfigIndex.SkillEntry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds the plane payload for a task and, when {@code plane.resolve-skill-prompts} is on, resolves the effective
+ * skill prompt in the gateway: the agent and skill come from the config index, the template is the
+ * {@code prompt_variant} if the skill has it and the skill's {@code promptTemplate} otherwise, and the rendered
+ * result is sent as {@code skill_prompt_override}. A caller-supplied {@code skill_prompt_override} always wins, and
+ * tasks for agents or skills not in the config are forwarded unresolved.
+ *
+ * <p>Templates are compiled at most once per config revision and skill/variant; a config write starts a fresh
+ * cache with the next revision.
+ */
+@Component
+public class SkillPromptResolver {
+
+    private final AgentConfigService agentConfigService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final AtomicReference<CompiledTemplates> templates = new AtomicReference<>(new CompiledTemplates(-1));
+
+    public SkillPromptResolver(
+            AgentConfigService agentConfigService,
+            ObjectMapper objectMapper,
+            PlaneProperties planeProperties) {
+        this.agentConfigService = agentConfigService;
+        this.objectMapper = objectMapper;
+        this.enabled = planeProperties.resolveSkillPrompts();
+    }
+
+    public Mono<Map<String, Object>> toPlanePayload(CreateTaskRequest request) {
+        Map<String, Object> payload = request.toPlanePayload();
+        if (!enabled || !payload.containsKey("skill_id") || payload.containsKey("skill_prompt_override")) {
+            return Mono.just(payload);
+        }
+        return agentConfigService.currentIndex().map(index -> {
+            PromptTemplate template = templatesFor(index).get(
+                    index,
+                    new TemplateKey(
+                            request.agentId().trim(),
+                            request.skillId().trim(),
+                            (String) payload.getOrDefault("prompt_variant", "")));
+            if (template != null) {
+                payload.put("skill_prompt_override", template.render(request.inputPayload(), this::format));
+            }
+            return payload;
+        });
+    }
+
+    /**
+     * The cache for {@code index}'s revision. An index older than the cached revision (a request that raced a
+     * reload) gets a throwaway cache so it never fills the newer one with stale templates.
+     */
+    private CompiledTemplates templatesFor(AgentConfigIndex index) {
+        CompiledTemplates current = templates.get();
+        if (current.revision == index.revision()) {
+            return current;
+        }
+        CompiledTemplates fresh = new CompiledTemplates(index.revision());
+        CompiledTemplates installed = templates.accumulateAndGet(fresh, (existing, candidate) ->
+                candidate.revision > existing.revision ? candidate : existing);
+        return installed.revision == index.revision() ? installed : fresh;
+    }
+
+    private String format(Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException exception) {
+            return String.valueOf(value);
+        }
+    }
+
+    private record TemplateKey(String agentId, String skillId, String variantKey) {
+    }
+
+    private static final class CompiledTemplates {
+
+        private final long revision;
+        private final Map<TemplateKey, PromptTemplate> byKey = new ConcurrentHashMap<>();
+
+        private CompiledTemplates(long revision) {
+            this.revision = revision;
+        }
+
+        /**
+         * Compiled template for {@code key}, or {@code null} when the agent or skill is unknown or has no prompt.
+         */
+        private PromptTemplate get(AgentConfigIndex index, TemplateKey key) {
+            PromptTemplate cached = byKey.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            return byKey.computeIfAbsent(key, ignored -> {
+                AgentEntry agent = index.agent(key.agentId());
+                SkillEntry skill = agent == null ? null : agent.skill(key.skillId());
+                String source = skill == null ? null : skill.promptTemplate(key.variantKey());
+                return source == null || source.isBlank() ? null : PromptTemplate.compile(source);
+            });
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.client.SseFrame;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bounded ring buffer of the most recent events of one upstream task stream. Every event gets a sequence number
+ * local to this buffer and an id: the upstream {@code id:} when present, otherwise the sequence number.
+ */
+final class TaskEventBuffer {
+
+    enum State {
+        OPEN,
+        COMPLETED,
+        CLOSED
+    }
+
+    private final int capacity;
+    private final ArrayDeque<TaskEvent> events;
+    private long nextSequence = 1L;
+    private long weightBytes;
+    private volatile State state = State.OPEN;
+
+    TaskEventBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.events = new ArrayDeque<>(Math.min(this.capacity, 256));
+    }
+
+    synchronized TaskEvent append(SseFrame upstream) {
+        long sequence = nextSequence++;
+        SseFrame event = upstream.id() != null ? upstream : upstream.withId(Long.toString(sequence));
+        TaskEvent taskEvent = new TaskEvent(this, sequence, event);
+        events.addLast(taskEvent);
+        weightBytes += estimateBytes(event);
+        if (events.size() > capacity) {
+            weightBytes -= estimateBytes(events.removeFirst().event());
+        }
+        return taskEvent;
+    }
+
+    /**
+     * Events recorded after the one with {@code lastEventId}, or {@code null} when that id is no longer (or was
+     * never) in the buffer and the gap cannot be filled from here.
+     */
+    synchronized Resume eventsAfter(String lastEventId) {
+        List<TaskEvent> missed = null;
+        long lastSequence = 0L;
+        Iterator<TaskEvent> iterator = events.iterator();
+        while (iterator.hasNext()) {
+            TaskEvent event = iterator.next();
+            if (missed != null) {
+                missed.add(event);
+                lastSequence = event.sequence();
+            } else if (lastEventId.equals(event.event().id())) {
+                missed = new ArrayList<>();
+                lastSequence = event.sequence();
+            }
+        }
+        return missed == null ? null : new Resume(missed, lastSequence);
+    }
+
+    /**
+     * Ids of the buffered events up to and including {@code lastSequence}.
+     */
+    synchronized Set<String> idsUpTo(long lastSequence) {
+        Set<String> ids = new HashSet<>();
+        for (TaskEvent event : events) {
+            if (event.sequence() > lastSequence) {
+                break;
+            }
+            ids.add(event.event().id());
+        }
+        return ids;
+    }
+
+    /**
+     * Every event of the stream, or {@code null} once the oldest ones have been dropped.
+     */
+    synchronized List<TaskEvent> eventsFromStart() {
+        TaskEvent first = events.peekFirst();
+        if (first != null && first.sequence() != 1L) {
+            return null;
+        }
+        return new ArrayList<>(events);
+    }
+
+    void markCompleted() {
+        state = State.COMPLETED;
+    }
+
+    void close() {
+        if (state == State.OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    State state() {
+        return state;
+    }
+
+    synchronized int weight() {
+        return (int) Math.min(Integer.MAX_VALUE, weightBytes);
+    }
+
+    private static long estimateBytes(SseFrame event) {
+        long bytes = 64L + event.bytes().length;
+        if (event.id() != null) {
+            bytes += event.id().length() * 2L;
+        }
+        if (event.event() != null) {
+            bytes += event.event().length() * 2L;
+        }
+        return bytes;
+    }
+
+    record TaskEvent(TaskEventBuffer source, long sequence, SseFrame event) {
+    }
+
+    record Resume(List<TaskEvent> missed, long lastSequence) {
+    }
+}
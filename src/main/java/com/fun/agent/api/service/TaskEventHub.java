@@ -0,0 +1,196 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.client.PlaneClient;
+import com.fun.agent.api.client.SseFrame;
+import com.fun.agent.api.config.PlaneProperties;
+import com.fun.agent.api.service.TaskEventBuffer.TaskEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Keeps at most one upstream event stream per task on this node and multicasts it to every local subscriber.
+ * The upstream connection opens with the first subscriber and closes {@code plane.events-upstream-grace-seconds}
+ * after the last one leaves, so a client that drops and reconnects keeps the same upstream; late joiners first
+ * receive the most recent {@code plane.events-replay-size} events.
+ *
+ * <p>Each upstream stream also records into a {@link TaskEventBuffer}, so a client reconnecting with
+ * {@code Last-Event-ID} only gets the events it missed. Once the upstream ends the buffer is kept for
+ * {@code plane.events-buffer-ttl-seconds}, and ended buffers together stay under
+ * {@code plane.events-buffer-max-bytes}. While it still holds the whole stream, a finished task is replayed
+ * from the buffer without calling the plane. A buffer whose upstream was closed before the task finished still
+ * serves the missed events; the client then continues on a new upstream stream, minus the events it already has.
+ */
+@Component
+public class TaskEventHub {
+
+    private final PlaneClient planeClient;
+    private final TaskStatusCache taskStatusCache;
+    private final int replaySize;
+    private final Duration upstreamGrace;
+    private final ConcurrentMap<String, Flux<TaskEvent>> streams = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TaskEventBuffer> buffers;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public TaskEventHub(
+            PlaneClient planeClient,
+            TaskStatusCache taskStatusCache,
+            PlaneProperties planeProperties,
+            MeterRegistry meterRegistry) {
+        this.planeClient = planeClient;
+        this.taskStatusCache = taskStatusCache;
+        this.replaySize = Math.max(1, planeProperties.eventsReplaySize());
+        this.upstreamGrace = Duration.ofSeconds(Math.max(0, planeProperties.eventsUpstreamGraceSeconds()));
+        long ttlNanos = Duration.ofSeconds(Math.max(1, planeProperties.eventsBufferTtlSeconds())).toNanos();
+        Cache<String, TaskEventBuffer> cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1L, planeProperties.eventsBufferMaxBytes()))
+                .weigher((String taskId, TaskEventBuffer buffer) ->
+                        buffer.state() == TaskEventBuffer.State.OPEN ? 0 : buffer.weight())
+                .expireAfter(new Expiry<String, TaskEventBuffer>() {
+                    @Override
+                    public long expireAfterCreate(String taskId, TaskEventBuffer buffer, long currentTime) {
+                        return buffer.state() == TaskEventBuffer.State.OPEN ? Long.MAX_VALUE : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(
+                            String taskId,
+                            TaskEventBuffer buffer,
+                            long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(taskId, buffer, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(
+                            String taskId,
+                            TaskEventBuffer buffer,
+                            long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.buffers = cache.asMap();
+        Gauge.builder("tasks.events.upstream.streams", streams, Map::size)
+                .description("Upstream task event streams open on this node")
+                .register(meterRegistry);
+        Gauge.builder("tasks.events.subscribers", subscribers, AtomicInteger::get)
+                .description("Client task event streams open on this node")
+                .register(meterRegistry);
+    }
+
+    public Flux<SseFrame> subscribe(String taskId, String lastEventId) {
+        return Flux.defer(() -> {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                Flux<SseFrame> resumed = resume(taskId, lastEventId.trim());
+                if (resumed != null) {
+                    return resumed;
+                }
+            }
+            Flux<SseFrame> finished = replayFinished(taskId);
+            if (finished != null) {
+                return finished;
+            }
+            return live(taskId).map(TaskEvent::event);
+        }).doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    public int activeStreams() {
+        return streams.size();
+    }
+
+    private Flux<SseFrame> resume(String taskId, String lastEventId) {
+        TaskEventBuffer buffer = buffers.get(taskId);
+        if (buffer == null) {
+            return null;
+        }
+        TaskEventBuffer.Resume resume = buffer.eventsAfter(lastEventId);
+        if (resume == null) {
+            return null;
+        }
+        Flux<SseFrame> missed = Flux.fromIterable(resume.missed()).map(TaskEvent::event);
+        if (buffer.state() == TaskEventBuffer.State.COMPLETED) {
+            return missed;
+        }
+        long lastSequence = resume.lastSequence();
+        // a later upstream stream starts over at the plane; skip what this buffer already delivered
+        Set<String> delivered = buffer.idsUpTo(lastSequence);
+        return missed.concatWith(live(taskId)
+                .filter(event -> event.source() == buffer
+                        ? event.sequence() > lastSequence
+                        : !delivered.contains(event.event().id()))
+                .map(TaskEvent::event));
+    }
+
+    private Flux<SseFrame> replayFinished(String taskId) {
+        TaskEventBuffer buffer = buffers.get(taskId);
+        if (buffer == null || buffer.state() != TaskEventBuffer.State.COMPLETED) {
+            return null;
+        }
+        List<TaskEvent> events = buffer.eventsFromStart();
+        return events == null ? null : Flux.fromIterable(events).map(TaskEvent::event);
+    }
+
+    private Flux<TaskEvent> live(String taskId) {
+        return Flux.defer(() -> streams.computeIfAbsent(taskId, this::openShared))
+                .onErrorResume(StreamEndedException.class, ended -> live(taskId));
+    }
+
+    private Flux<TaskEvent> openShared(String taskId) {
+        TaskEventBuffer buffer = new TaskEventBuffer(replaySize);
+        buffers.put(taskId, buffer);
+        AtomicReference<Flux<TaskEvent>> self = new AtomicReference<>();
+        AtomicBoolean connected = new AtomicBoolean();
+        Flux<TaskEvent> shared = Flux.defer(() -> connected.compareAndSet(false, true)
+                        ? planeClient.streamTaskEvents(taskId)
+                        // refCount reconnects when a subscriber still holding this flux arrives after it ended
+                        : Flux.<SseFrame>error(StreamEndedException.INSTANCE))
+                .doOnNext(event -> {
+                    if (TaskStates.isTerminal(event)) {
+                        taskStatusCache.invalidate(taskId);
+                    }
+                })
+                .map(buffer::append)
+                .doOnComplete(() -> {
+                    buffer.markCompleted();
+                    taskStatusCache.invalidate(taskId);
+                })
+                .doFinally(signal -> {
+                    buffer.close();
+                    // re-inserting the same buffer re-weighs it and starts its TTL now that it has ended
+                    buffers.replace(taskId, buffer, buffer);
+                    streams.remove(taskId, self.get());
+                })
+                .replay(replaySize)
+                .refCount(1, upstreamGrace);
+        self.set(shared);
+        return shared;
+    }
+
+    /**
+     * Signals a subscriber that reached an upstream stream after it ended, so it retries on the current one.
+     */
+    private static final class StreamEndedException extends RuntimeException {
+
+        private static final StreamEndedException INSTANCE = new StreamEndedException();
+
+        private StreamEndedException() {
+            super("task event stream ended", null, false, false);
+        }
+    }
+}
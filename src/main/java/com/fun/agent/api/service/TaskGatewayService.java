@@ -0,0 +1,176 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.client.PlaneClient;
+import com.fun.agent.api.client.PlaneResponse;
+import com.fun.agent.api.client.SseFrame;
+import com.fun.agent.api.config.PlaneProperties;
+import com.fun.agent.api.service.AgentConfigIndex.AgentEntry;
+import com.fun.agent.api.service.AgentConfigIndex.SkillEntry;
+import com.fun.agent.api.model.CreateTaskBatchItemResult;
+import com.fun.agent.api.model.CreateTaskBatchResponse;
+import com.fun.agent.api.model.CreateTaskRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class TaskGatewayService {
+
+    private final PlaneClient planeClient;
+    private final TaskIdempotencyCache idempotencyCache;
+    private final TaskEventHub taskEventHub;
+    private final TaskStatusCache taskStatusCache;
+    private final TenantAdmissionController admissionController;
+    private final SkillPromptResolver skillPromptResolver;
+    private final AgentConfigService agentConfigService;
+    private final boolean validateTargets;
+    private final int batchConcurrency;
+    private final int batchMaxSize;
+    private final Duration heartbeatInterval;
+
+    public TaskGatewayService(
+            PlaneClient planeClient,
+            TaskIdempotencyCache idempotencyCache,
+            TaskEventHub taskEventHub,
+            TaskStatusCache taskStatusCache,
+            TenantAdmissionController admissionController,
+            SkillPromptResolver skillPromptResolver,
+            AgentConfigService agentConfigService,
+            PlaneProperties planeProperties) {
+        this.planeClient = planeClient;
+        this.idempotencyCache = idempotencyCache;
+        this.taskEventHub = taskEventHub;
+        this.taskStatusCache = taskStatusCache;
+        this.admissionController = admissionController;
+        this.skillPromptResolver = skillPromptResolver;
+        this.agentConfigService = agentConfigService;
+        this.validateTargets = planeProperties.validateTaskTargets() && agentConfigService.snapshotEnabled();
+        this.batchConcurrency = Math.max(1, planeProperties.batchConcurrency());
+        this.batchMaxSize = Math.max(1, planeProperties.batchMaxSize());
+        this.heartbeatInterval = planeProperties.eventsHeartbeatSeconds() > 0
+                ? Duration.ofSeconds(planeProperties.eventsHeartbeatSeconds())
+                : null;
+    }
+
+    public Mono<PlaneResponse> createTask(CreateTaskRequest request) {
+        return resolveTarget(request).flatMap(resolved -> idempotencyCache.execute(
+                resolved.tenantId(),
+                resolved.idempotencyKey(),
+                () -> admissionController.admit(
+                        resolved.tenantId(),
+                        () -> skillPromptResolver.toPlanePayload(resolved).flatMap(planeClient::createTask))));
+    }
+
+    /**
+     * Submits every task to the plane with at most {@code plane.batch-concurrency} requests in flight. Results come
+     * back in request order, and a failed item never fails the batch.
+     */
+    public Mono<CreateTaskBatchResponse> createTasks(List<CreateTaskRequest> requests) {
+        if (requests.size() > batchMaxSize) {
+            return Mono.error(new IllegalArgumentException("tasks must not contain more than " + batchMaxSize + " items"));
+        }
+        return Flux.range(0, requests.size())
+                .flatMapSequential(
+                        index -> createTask(requests.get(index))
+                                .map(response -> CreateTaskBatchItemResult.accepted(index, response))
+                                .onErrorResume(error -> Mono.just(failedItem(index, error))),
+                        batchConcurrency)
+                .collectList()
+                .map(CreateTaskBatchResponse::new);
+    }
+
+    public Mono<PlaneResponse> getTask(String taskId) {
+        return taskStatusCache.getTask(taskId);
+    }
+
+    public Mono<PlaneResponse> cancelTask(String taskId) {
+        return planeClient.cancelTask(taskId)
+                .doFinally(signal -> taskStatusCache.invalidate(taskId));
+    }
+
+    /**
+     * Task events as raw frames, with a comment frame every {@code plane.events-heartbeat-seconds} until the
+     * event stream ends.
+     */
+    public Flux<SseFrame> streamTaskEvents(String taskId, String lastEventId) {
+        Flux<SseFrame> events = taskEventHub.subscribe(taskId, lastEventId);
+        if (heartbeatInterval == null) {
+            return events;
+        }
+        return events.publish(shared -> Flux.merge(
+                shared,
+                Flux.interval(heartbeatInterval, heartbeatInterval)
+                        .map(tick -> SseFrame.HEARTBEAT)
+                        .takeUntilOther(shared.ignoreElements().onErrorComplete())));
+    }
+
+    /**
+     * Checks the agent, workflow, skill and prompt variant against the config index and fills in the agent's
+     * default workflow, so a bad target is rejected here instead of after a plane round trip. Off when
+     * {@code plane.validate-task-targets} is false or there is no config snapshot to check against.
+     */
+    private Mono<CreateTaskRequest> resolveTarget(CreateTaskRequest request) {
+        if (!validateTargets) {
+            return Mono.just(request);
+        }
+        return agentConfigService.currentIndex().map(index -> {
+            String agentId = request.agentId().trim();
+            AgentEntry agent = index.agent(agentId);
+            if (agent == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "agent not found: " + agentId);
+            }
+            if (agent.isOffline()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "agent is offline: " + agentId);
+            }
+            CreateTaskRequest resolved = request;
+            if (isBlank(request.workflowId())) {
+                if (agent.defaultWorkflowId() != null) {
+                    resolved = request.withWorkflowId(agent.defaultWorkflowId());
+                }
+            } else if (!agent.hasWorkflow(request.workflowId().trim())) {
+                throw new ResponseStatusException(
+                        HttpStatus.NOT_FOUND,
+                        "workflow not found for agent: " + agentId + "/" + request.workflowId().trim());
+            }
+            if (!isBlank(request.skillId())) {
+                String skillId = request.skillId().trim();
+                SkillEntry skill = agent.skill(skillId);
+                if (skill == null) {
+                    throw new ResponseStatusException(
+                            HttpStatus.NOT_FOUND,
+                            "skill not found for agent: " + agentId + "/" + skillId);
+                }
+                if (!isBlank(request.promptVariant()) && !skill.hasVariant(request.promptVariant().trim())) {
+                    throw new ResponseStatusException(
+                            HttpStatus.NOT_FOUND,
+                            "variant not found for skill: "
+                                    + agentId
+                                    + "/"
+                                    + skillId
+                                    + "/"
+                                    + request.promptVariant().trim());
+                }
+            }
+            return resolved;
+        });
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private CreateTaskBatchItemResult failedItem(int index, Throwable error) {
+        if (error instanceof ResponseStatusException statusException) {
+            return CreateTaskBatchItemResult.failed(index, statusException.getStatusCode().value(), statusException.getReason());
+        }
+        if (error instanceof TimeoutException) {
+            return CreateTaskBatchItemResult.failed(index, HttpStatus.GATEWAY_TIMEOUT.value(), "plane request timed out");
+        }
+        return CreateTaskBatchItemResult.failed(index, HttpStatus.BAD_GATEWAY.value(), error.getMessage());
+    }
+}
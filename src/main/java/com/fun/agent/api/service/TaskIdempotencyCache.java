@@ -0,0 +1,78 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.client.PlaneResponse;
+import com.fun.agent.api.config.PlaneProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Collapses task submissions that share a {@code (tenantId, idempotencyKey)} into one plane call. The entry is
+ * created when the first request arrives, so concurrent duplicates attach to the call in flight. A successful
+ * response is written back when the call completes, which restarts the TTL, and is replayed until the entry
+ * expires or is evicted. Failures drop the entry so a retry goes upstream.
+ */
+@Component
+public class TaskIdempotencyCache {
+
+    private final boolean enabled;
+    private final ConcurrentMap<Key, Mono<PlaneResponse>> entries;
+
+    @Autowired
+    public TaskIdempotencyCache(PlaneProperties planeProperties) {
+        this(planeProperties, Ticker.systemTicker());
+    }
+
+    /**
+     * Times entry expiry with {@code ticker}.
+     */
+    TaskIdempotencyCache(PlaneProperties planeProperties, Ticker ticker) {
+        this.enabled = planeProperties.idempotencyTtlSeconds() > 0;
+        Cache<Key, Mono<PlaneResponse>> cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, planeProperties.idempotencyMaxEntries()))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, planeProperties.idempotencyTtlSeconds())))
+                .ticker(ticker)
+                .build();
+        this.entries = cache.asMap();
+    }
+
+    public Mono<PlaneResponse> execute(
+            String tenantId,
+            String idempotencyKey,
+            Supplier<Mono<PlaneResponse>> call) {
+        if (!enabled || idempotencyKey == null || idempotencyKey.isBlank()) {
+            return call.get();
+        }
+        Key key = new Key(tenantId, idempotencyKey.trim());
+        return Mono.defer(() -> {
+            Mono<PlaneResponse> existing = entries.get(key);
+            return existing != null ? existing : start(key, call);
+        });
+    }
+
+    private Mono<PlaneResponse> start(Key key, Supplier<Mono<PlaneResponse>> call) {
+        Sinks.One<PlaneResponse> sink = Sinks.one();
+        Mono<PlaneResponse> shared = sink.asMono();
+        Mono<PlaneResponse> existing = entries.putIfAbsent(key, shared);
+        if (existing != null) {
+            return existing;
+        }
+        call.get()
+                // re-put on completion so the TTL counts from the response, not from when the slow call started
+                .doOnNext(response -> entries.replace(key, shared, Mono.just(response)))
+                .doOnError(error -> entries.remove(key, shared))
+                .switchIfEmpty(Mono.fromRunnable(() -> entries.remove(key, shared)))
+                .subscribe(sink::tryEmitValue, sink::tryEmitError, sink::tryEmitEmpty);
+        return shared;
+    }
+
+    private record Key(String tenantId, String idempotencyKey) {
+    }
+}
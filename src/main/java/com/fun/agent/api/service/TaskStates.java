@@ -0,0 +1,133 @@
+package com.fun.agent.api.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fun.agent.api.client.SseFrame;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recognizes terminal task states in plane task bodies and event streams.
+ */
+final class TaskStates {
+
+    private static final Set<String> TERMINAL = Set.of("succeeded", "failed", "cancelled", "canceled");
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final byte[] STATUS_NEEDLE = "\"status\"".getBytes(StandardCharsets.US_ASCII);
+
+    private TaskStates() {
+    }
+
+    static boolean isTerminal(Object status) {
+        return status instanceof String value && TERMINAL.contains(value.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Looks up the top-level {@code "status"} of a raw JSON task body with a streaming parse, stopping as soon as
+     * the field is found. Bodies that are not a JSON object are never terminal.
+     */
+    static boolean isTerminal(byte[] taskJson) {
+        return taskJson != null && hasTerminalStatus(taskJson, 0, taskJson.length);
+    }
+
+    /**
+     * True for events named after a terminal state (for example {@code event: succeeded} or
+     * {@code event: task.failed}) or whose JSON data carries a terminal top-level {@code "status"}. The data lines
+     * are only parsed, in place, when the frame bytes contain {@code "status"} at all.
+     */
+    static boolean isTerminal(SseFrame event) {
+        String name = event.event();
+        if (name != null) {
+            int dot = name.lastIndexOf('.');
+            if (isTerminal(dot >= 0 ? name.substring(dot + 1) : name)) {
+                return true;
+            }
+        }
+        if (!event.contains(STATUS_NEEDLE)) {
+            return false;
+        }
+        byte[] frame = event.bytes();
+        int dataStart = -1;
+        int dataEnd = -1;
+        ByteArrayOutputStream multiLineData = null;
+        int lineStart = 0;
+        while (lineStart < frame.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < frame.length && frame[lineEnd] != '\n' && frame[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            int valueStart = dataValueStart(frame, lineStart, lineEnd);
+            if (valueStart >= 0) {
+                if (dataStart < 0) {
+                    dataStart = valueStart;
+                    dataEnd = lineEnd;
+                } else {
+                    // data spread over several lines is joined with LF, as an EventSource would
+                    if (multiLineData == null) {
+                        multiLineData = new ByteArrayOutputStream(frame.length);
+                        multiLineData.write(frame, dataStart, dataEnd - dataStart);
+                    }
+                    multiLineData.write('\n');
+                    multiLineData.write(frame, valueStart, lineEnd - valueStart);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (multiLineData != null) {
+            byte[] data = multiLineData.toByteArray();
+            return hasTerminalStatus(data, 0, data.length);
+        }
+        return dataStart >= 0 && hasTerminalStatus(frame, dataStart, dataEnd - dataStart);
+    }
+
+    /**
+     * Start of the value when the line is a {@code data} field, otherwise -1.
+     */
+    private static int dataValueStart(byte[] frame, int lineStart, int lineEnd) {
+        if (lineEnd - lineStart < 4
+                || frame[lineStart] != 'd'
+                || frame[lineStart + 1] != 'a'
+                || frame[lineStart + 2] != 't'
+                || frame[lineStart + 3] != 'a') {
+            return -1;
+        }
+        int valueStart = lineStart + 4;
+        if (valueStart == lineEnd) {
+            return valueStart;
+        }
+        if (frame[valueStart] != ':') {
+            return -1;
+        }
+        valueStart++;
+        if (valueStart < lineEnd && frame[valueStart] == ' ') {
+            valueStart++;
+        }
+        return valueStart;
+    }
+
+    private static boolean hasTerminalStatus(byte[] json, int offset, int length) {
+        if (length == 0) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("status".equals(field)) {
+                    return value == JsonToken.VALUE_STRING && isTerminal(parser.getText());
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+}
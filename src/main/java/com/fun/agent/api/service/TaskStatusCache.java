@@ -0,0 +1,72 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.client.PlaneClient;
+import com.fun.agent.api.client.PlaneResponse;
+import com.fun.agent.api.config.PlaneProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache in front of {@link PlaneClient#getTask(String)}. Running tasks are cached for
+ * {@code plane.status-cache-running-ttl-millis}, tasks in a terminal state for
+ * {@code plane.status-cache-terminal-ttl-seconds}. Concurrent misses for one task share a single plane call, and
+ * failed lookups are never cached.
+ */
+@Component
+public class TaskStatusCache {
+
+    private final PlaneClient planeClient;
+    private final boolean enabled;
+    private final AsyncCache<String, PlaneResponse> cache;
+
+    public TaskStatusCache(PlaneClient planeClient, PlaneProperties planeProperties) {
+        this.planeClient = planeClient;
+        this.enabled = planeProperties.statusCacheMaxEntries() > 0;
+        long runningNanos = Duration.ofMillis(Math.max(0, planeProperties.statusCacheRunningTtlMillis())).toNanos();
+        long terminalNanos = Duration.ofSeconds(Math.max(0, planeProperties.statusCacheTerminalTtlSeconds())).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, planeProperties.statusCacheMaxEntries()))
+                .expireAfter(new Expiry<String, PlaneResponse>() {
+                    @Override
+                    public long expireAfterCreate(String taskId, PlaneResponse task, long currentTime) {
+                        return TaskStates.isTerminal(task.body()) ? terminalNanos : runningNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(
+                            String taskId,
+                            PlaneResponse task,
+                            long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(taskId, task, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(
+                            String taskId,
+                            PlaneResponse task,
+                            long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .buildAsync();
+    }
+
+    public Mono<PlaneResponse> getTask(String taskId) {
+        if (!enabled) {
+            return planeClient.getTask(taskId);
+        }
+        return Mono.defer(() -> Mono.fromFuture(
+                cache.get(taskId, (key, executor) -> planeClient.getTask(key).toFuture()),
+                true));
+    }
+
+    public void invalidate(String taskId) {
+        cache.synchronous().invalidate(taskId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.fun.agent.api.service;
+
+import com.fun.agent.api.config.TenantLimitsProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-tenant rate and concurrency limits for task creation. Each tenant has its own limiter built from two
+ * atomics, so admission never takes a lock and tenants never contend with each other. Limiters of idle tenants
+ * are evicted after ten minutes.
+ */
+@Component
+public class TenantAdmissionController {
+
+    private final TenantLimitsProperties properties;
+    private final Ticker ticker;
+    private final ConcurrentMap<String, TenantLimiter> limiters;
+
+    @Autowired
+    public TenantAdmissionController(TenantLimitsProperties properties) {
+        this(properties, Ticker.systemTicker());
+    }
+
+    /**
+     * Reads the time for both the rate limit and limiter eviction from {@code ticker}.
+     */
+    TenantAdmissionController(TenantLimitsProperties properties, Ticker ticker) {
+        this.properties = properties;
+        this.ticker = ticker;
+        this.limiters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .ticker(ticker)
+                .<String, TenantLimiter>build()
+                .asMap();
+    }
+
+    /**
+     * Runs {@code call} if the tenant is within its limits and holds an in-flight slot until the call terminates;
+     * otherwise fails fast with {@link TenantThrottledException}.
+     */
+    public <T> Mono<T> admit(String tenantId, Supplier<Mono<T>> call) {
+        if (!properties.enabled()) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            TenantLimiter limiter = limiters.computeIfAbsent(
+                    tenantId,
+                    key -> new TenantLimiter(properties.limitFor(key)));
+            limiter.acquire(tenantId, ticker.read());
+            return call.get().doFinally(signal -> limiter.release());
+        });
+    }
+
+    /**
+     * Token bucket in its GCRA form: a single "theoretical arrival time" advanced by one emission interval per
+     * admitted request, which allows {@code burst} requests at once and {@code ratePerSecond} sustained.
+     */
+    private static final class TenantLimiter {
+
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final int maxInFlight;
+        private final AtomicLong theoreticalArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private TenantLimiter(TenantLimitsProperties.Limit limit) {
+            this.emissionIntervalNanos = limit.ratePerSecond() > 0
+                    ? (long) (TimeUnit.SECONDS.toNanos(1) / limit.ratePerSecond())
+                    : 0L;
+            this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, limit.burst() - 1);
+            this.maxInFlight = limit.maxInFlight();
+        }
+
+        private void acquire(String tenantId, long now) {
+            if (maxInFlight > 0 && inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                throw new TenantThrottledException("too many tasks in flight for tenant: " + tenantId, 1);
+            }
+            if (emissionIntervalNanos <= 0) {
+                return;
+            }
+            while (true) {
+                long current = theoreticalArrivalNanos.get();
+                long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long waitNanos = arrival - now - burstToleranceNanos;
+                if (waitNanos > 0) {
+                    release();
+                    throw new TenantThrottledException(
+                            "rate limit exceeded for tenant: " + tenantId,
+                            TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+                }
+                if (theoreticalArrivalNanos.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                    return;
+                }
+            }
+        }
+
+        private void release() {
+            if (maxInFlight > 0) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
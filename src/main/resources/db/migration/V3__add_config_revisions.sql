@@ -0,0 +1,13 @@
+ALTER TABLE agent_cfg.agents
+    ADD COLUMN IF NOT EXISTS revision BIGINT NOT NULL DEFAULT 1;
+
+CREATE TABLE IF NOT EXISTS agent_cfg.config_revision (
+    singleton BOOLEAN PRIMARY KEY DEFAULT TRUE,
+    revision BIGINT NOT NULL DEFAULT 1,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT ck_config_revision_singleton CHECK (singleton)
+);
+
+INSERT INTO agent_cfg.config_revision (singleton, revision)
+VALUES (TRUE, 1)
+ON CONFLICT (singleton) DO NOTHING;
@@ -0,0 +1,108 @@
+package com.fun.agent.api.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+class SseFrameDecoderTest {
+
+    private static final String LF_STREAM = "id:1\nevent:status\ndata:{\"a\":1}\n\n"
+            + "data:line one\ndata:line two\n\n"
+            + "id: 3\ndata\n\n";
+
+    @Test
+    void framesSplitAtAnyBufferBoundaryDecodeTheSame() {
+        for (int chunkSize = 1; chunkSize <= LF_STREAM.length(); chunkSize++) {
+            List<SseFrame> frames = decode(LF_STREAM, chunkSize);
+
+            assertThat(frames).as("chunk size %d", chunkSize)
+                    .extracting(SseFrame::id, SseFrame::event, SseFrame::text)
+                    .containsExactly(
+                            tuple("1", "status", "id:1\nevent:status\ndata:{\"a\":1}\n\n"),
+                            tuple(null, null, "data:line one\ndata:line two\n\n"),
+                            tuple("3", null, "id: 3\ndata\n\n"));
+        }
+    }
+
+    @Test
+    void crlfFrameEndsAtTheTerminatingCr() {
+        String stream = "id:1\r\ndata:x\r\n\r\nid:2\r\ndata:y\r\n\r\n";
+        for (int chunkSize = 1; chunkSize <= stream.length(); chunkSize++) {
+            List<SseFrame> frames = decode(stream, chunkSize);
+
+            // the LF after the blank line's CR is not part of the relayed frame; "\r" alone ends a line, so the
+            // frame is still valid SSE, and the LF is skipped instead of starting the next frame with a blank line
+            assertThat(frames).as("chunk size %d", chunkSize)
+                    .extracting(SseFrame::id, SseFrame::text)
+                    .containsExactly(
+                            tuple("1", "id:1\r\ndata:x\r\n\r"),
+                            tuple("2", "id:2\r\ndata:y\r\n\r"));
+        }
+    }
+
+    @Test
+    void crOnlyLineEndingsAreAccepted() {
+        List<SseFrame> frames = decode("id:7\rdata:x\r\r", 3);
+
+        assertThat(frames).extracting(SseFrame::id, SseFrame::text)
+                .containsExactly(tuple("7", "id:7\rdata:x\r\r"));
+    }
+
+    @Test
+    void commentsHeartbeatsAndBareRetryAreDropped() {
+        String stream = ":\n\n"
+                + ": keep-alive\n\n"
+                + "retry:1000\n\n"
+                + ":\r\n\r\n"
+                + "id:9\n: inline comment\ndata:x\n\n";
+        for (int chunkSize = 1; chunkSize <= stream.length(); chunkSize++) {
+            List<SseFrame> frames = decode(stream, chunkSize);
+
+            assertThat(frames).as("chunk size %d", chunkSize)
+                    .extracting(SseFrame::id, SseFrame::text)
+                    .containsExactly(tuple("9", "id:9\n: inline comment\ndata:x\n\n"));
+        }
+    }
+
+    @Test
+    void unterminatedFrameIsHeldBack() {
+        SseFrameDecoder decoder = new SseFrameDecoder(1024);
+
+        assertThat(decoder.decode(buffer("id:1\ndata:x\n"))).isEmpty();
+        assertThat(decoder.decode(buffer("\n"))).extracting(SseFrame::text).containsExactly("id:1\ndata:x\n\n");
+    }
+
+    @Test
+    void frameOverTheLimitFails() {
+        SseFrameDecoder decoder = new SseFrameDecoder(16);
+        char[] payload = new char[32];
+        Arrays.fill(payload, 'x');
+
+        assertThatThrownBy(() -> decoder.decode(buffer("data:" + new String(payload))))
+                .isInstanceOf(DataBufferLimitException.class);
+    }
+
+    private static List<SseFrame> decode(String stream, int chunkSize) {
+        SseFrameDecoder decoder = new SseFrameDecoder(1024);
+        byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+        List<SseFrame> frames = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            byte[] chunk = Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize));
+            frames.addAll(decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(chunk)));
+        }
+        return frames;
+    }
+
+    private static DataBuffer buffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
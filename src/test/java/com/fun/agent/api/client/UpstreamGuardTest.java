@@ -0,0 +1,68 @@
+package com.fun.agent.api.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fun.agent.api.config.UpstreamGuardProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class UpstreamGuardTest {
+
+    @Test
+    void burstOfFailuresBacksOffOnce() {
+        UpstreamGuard guard = guard(60_000);
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Sinks.One<String> call = Sinks.one();
+            calls.add(call);
+            guard.protect(call.asMono()).subscribe(value -> { }, error -> { });
+        }
+        assertThat(guard.inFlight()).isEqualTo(30);
+
+        calls.forEach(call -> call.tryEmitError(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT)));
+
+        assertThat(guard.inFlight()).isZero();
+        assertThat(guard.limit()).isEqualTo(90.0);
+    }
+
+    @Test
+    void backsOffAgainOnceTheLatencyWindowHasPassed() throws InterruptedException {
+        UpstreamGuard guard = guard(20);
+
+        fail(guard);
+        fail(guard);
+        assertThat(guard.limit()).isEqualTo(90.0);
+
+        Thread.sleep(40);
+        fail(guard);
+        assertThat(guard.limit()).isEqualTo(81.0);
+    }
+
+    @Test
+    void fastSuccessesGrowTheLimitAdditively() {
+        UpstreamGuard guard = guard(60_000);
+
+        guard.protect(Mono.just("ok")).block();
+
+        assertThat(guard.limit()).isEqualTo(100.0 + 1.0 / 100.0);
+    }
+
+    private static void fail(UpstreamGuard guard) {
+        guard.protect(Mono.error(new ResponseStatusException(HttpStatus.BAD_GATEWAY)))
+                .onErrorResume(error -> Mono.empty())
+                .block();
+    }
+
+    private static UpstreamGuard guard(long latencyThresholdMillis) {
+        // breaker thresholds out of reach, so only the concurrency limit reacts
+        UpstreamGuardProperties properties = new UpstreamGuardProperties(
+                true, 100, 4, 1000, latencyThresholdMillis, 0.9, 50, 1.0, 1000, 30, 1);
+        return new UpstreamGuard("plane", properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,38 @@
+package com.fun.agent.api.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.junit.jupiter.api.Test;
+
+class AgentConfigStoreConfigTest {
+
+    @Test
+    void swapsPrefixOfPlainUrl() {
+        assertThat(AgentConfigStoreConfig.r2dbcUrlOf("jdbc:postgresql://db:5432/fun_ai_agent"))
+                .isEqualTo("r2dbc:postgresql://db:5432/fun_ai_agent");
+    }
+
+    @Test
+    void carriesKnownParametersOverUnderTheirR2dbcNames() {
+        String url = AgentConfigStoreConfig.r2dbcUrlOf(
+                "jdbc:postgresql://db:5432/fun_ai_agent?sslmode=require&currentSchema=agent_cfg&ApplicationName=api");
+
+        assertThat(url).isEqualTo(
+                "r2dbc:postgresql://db:5432/fun_ai_agent?sslMode=require&schema=agent_cfg&applicationName=api");
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url);
+        assertThat(options.getValue(Option.valueOf("sslMode"))).isEqualTo("require");
+        assertThat(options.getValue(Option.valueOf("schema"))).isEqualTo("agent_cfg");
+    }
+
+    @Test
+    void rejectsParametersWithoutR2dbcEquivalent() {
+        assertThatThrownBy(() -> AgentConfigStoreConfig.r2dbcUrlOf(
+                        "jdbc:postgresql://db:5432/fun_ai_agent?sslmode=require&prepareThreshold=0"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("prepareThreshold")
+                .hasMessageContaining("AGENT_CONFIG_R2DBC_URL");
+    }
+}
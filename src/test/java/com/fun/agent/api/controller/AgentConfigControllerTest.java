@@ -0,0 +1,75 @@
+package com.fun.agent.api.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fun.agent.api.service.AgentConfigService;
+import com.fun.agent.api.service.AgentConfigSnapshot;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+class AgentConfigControllerTest {
+
+    private final AgentConfigService service = mock(AgentConfigService.class);
+    private final WebTestClient client = WebTestClient
+            .bindToController(new AgentConfigController(service))
+            .controllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void replaceTakesTheConfigEtagIncludingItsGzipForm() {
+        when(service.replaceAll(any(), eq(42L))).thenReturn(Mono.just(new AgentConfigSnapshot(43, List.of())));
+
+        client.put().uri("/v1/config/agents")
+                .header(HttpHeaders.IF_MATCH, "\"cfg-42-gzip\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"agents\":[]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"cfg-43\"");
+
+        verify(service).replaceAll(List.of(), 42L);
+    }
+
+    @Test
+    void replaceRefusesAnAgentEtag() {
+        client.put().uri("/v1/config/agents")
+                .header(HttpHeaders.IF_MATCH, "\"agent-42\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"agents\":[]}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void skillWriteRefusesTheConfigEtag() {
+        client.put().uri("/v1/config/agents/a1/skills/s1")
+                .header(HttpHeaders.IF_MATCH, "\"cfg-7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"s1\",\"promptTemplate\":\"hi\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void malformedEtagIsABadRequest() {
+        client.delete().uri("/v1/config/agents/a1/skills/s1/variants/v1")
+                .header(HttpHeaders.IF_MATCH, "agent-7")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(service);
+    }
+}
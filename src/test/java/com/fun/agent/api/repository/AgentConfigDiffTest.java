@@ -0,0 +1,151 @@
+package com.fun.agent.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fun.agent.api.model.config.AgentConfigPayload;
+import com.fun.agent.api.model.config.SkillConfigPayload;
+import com.fun.agent.api.model.config.WorkflowConfigPayload;
+import com.fun.agent.api.repository.AgentConfigDiff.BatchWrite;
+import com.fun.agent.api.repository.AgentConfigDiff.StoredConfig;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class AgentConfigDiffTest {
+
+    private static final Pattern TABLE = Pattern.compile("agent_cfg\\.\\w+");
+
+    @Test
+    void newAgentIsInsertedParentFirstWithoutRevisionBump() {
+        List<BatchWrite> writes = diff(
+                List.of(),
+                List.of(agent("a1", "first", List.of(workflow("w1")),
+                        List.of(skill("s1", "hello", Map.of("v1", "hi"))))));
+
+        assertThat(writes).extracting(AgentConfigDiffTest::label).containsExactly(
+                "INSERT agent_cfg.agents",
+                "INSERT agent_cfg.workflows",
+                "INSERT agent_cfg.skills",
+                "INSERT agent_cfg.skill_prompt_variants");
+        assertThat(writes.get(0).rows())
+                .containsExactly(new Object[] {"a1", "a1", "owner", "ONLINE", "first", "w1"});
+        assertThat(writes.get(3).rows()).containsExactly(new Object[] {"a1", "s1", "v1", "hi"});
+    }
+
+    @Test
+    void changedRowsAreUpdatedAfterBumpingTheirAgent() {
+        List<BatchWrite> writes = diff(
+                List.of(agent("a1", "first", List.of(), List.of(skill("s1", "old", Map.of())))),
+                List.of(agent("a1", "renamed", List.of(), List.of(skill("s1", "new", Map.of())))));
+
+        assertThat(writes).extracting(AgentConfigDiffTest::label).containsExactly(
+                "BUMP agent_cfg.agents",
+                "UPDATE agent_cfg.agents",
+                "UPDATE agent_cfg.skills");
+        assertThat(writes.get(0).rows()).containsExactly(new Object[] {"a1"});
+        assertThat(writes.get(2).rows()).containsExactly(new Object[] {"s1", "new", 1, "a1", "s1"});
+    }
+
+    @Test
+    void deletesLeaveCascadedChildrenToTheDatabase() {
+        List<BatchWrite> writes = diff(
+                List.of(
+                        agent("a1", "first", List.of(workflow("w1")), List.of(skill("s1", "p", Map.of("v1", "x")))),
+                        agent("a2", "second", List.of(), List.of(
+                                skill("s3", "p", Map.of("v3", "z")),
+                                skill("s2", "p", Map.of("v2a", "x", "v2b", "y"))))),
+                List.of(
+                        agent("a2", "second", List.of(), List.of(skill("s3", "p", Map.of())))));
+
+        assertThat(writes).extracting(AgentConfigDiffTest::label).containsExactly(
+                "BUMP agent_cfg.agents",
+                "DELETE agent_cfg.agents",
+                "DELETE agent_cfg.skills",
+                "DELETE agent_cfg.skill_prompt_variants");
+        assertThat(writes.get(0).rows()).containsExactly(new Object[] {"a2"});
+        assertThat(writes.get(1).rows()).containsExactly(new Object[] {"a1"});
+        // s2's variants go with s2, a1's children with a1; only the variant of the surviving skill is deleted
+        assertThat(writes.get(2).rows()).containsExactly(new Object[] {"a2", "s2"});
+        assertThat(writes.get(3).rows()).containsExactly(new Object[] {"a2", "s3", "v3"});
+    }
+
+    @Test
+    void unchangedConfigWritesNothing() {
+        List<AgentConfigPayload> agents = List.of(
+                agent("a1", "first", List.of(workflow("w1")), List.of(skill("s1", "p", Map.of("v1", "x")))),
+                agent("a2", "second", List.of(), List.of()));
+
+        assertThat(diff(agents, agents)).isEmpty();
+    }
+
+    @Test
+    void onlyTouchedAgentsAreBumpedInAgentIdOrder() {
+        List<BatchWrite> writes = diff(
+                List.of(
+                        agent("a3", "third", List.of(), List.of(skill("s1", "p", Map.of()))),
+                        agent("a1", "first", List.of(), List.of(skill("s1", "p", Map.of()))),
+                        agent("a2", "second", List.of(), List.of(skill("s1", "p", Map.of())))),
+                List.of(
+                        agent("a3", "third", List.of(), List.of(skill("s1", "p", Map.of("v1", "x")))),
+                        agent("a1", "first", List.of(workflow("w1")), List.of(skill("s1", "p", Map.of()))),
+                        agent("a2", "second", List.of(), List.of(skill("s1", "p", Map.of())))));
+
+        assertThat(writes.get(0).rows()).containsExactly(new Object[] {"a1"}, new Object[] {"a3"});
+    }
+
+    @Test
+    void batchesRunBumpsThenDeletesThenParentsBeforeChildren() {
+        List<BatchWrite> writes = diff(
+                List.of(
+                        agent("a1", "first", List.of(), List.of()),
+                        agent("a2", "second", List.of(workflow("w1")), List.of(skill("s1", "p", Map.of())))),
+                List.of(
+                        agent("a2", "second", List.of(new WorkflowConfigPayload("w1", "w1", "changed", "")),
+                                List.of(skill("s1", "p", Map.of("v1", "x")))),
+                        agent("a3", "third", List.of(), List.of(skill("s9", "p", Map.of())))));
+
+        assertThat(writes).extracting(AgentConfigDiffTest::label).containsExactly(
+                "BUMP agent_cfg.agents",
+                "DELETE agent_cfg.agents",
+                "INSERT agent_cfg.agents",
+                "UPDATE agent_cfg.workflows",
+                "INSERT agent_cfg.skills",
+                "INSERT agent_cfg.skill_prompt_variants");
+        assertThat(writes.get(0).rows()).containsExactly(new Object[] {"a2"});
+    }
+
+    private static List<BatchWrite> diff(List<AgentConfigPayload> current, List<AgentConfigPayload> desired) {
+        return AgentConfigDiff.between(StoredConfig.of(current), StoredConfig.of(desired));
+    }
+
+    /**
+     * Statement kind and table, with the agent revision bump told apart from a plain agent update.
+     */
+    private static String label(BatchWrite write) {
+        String sql = write.sql().strip().replaceAll("\\s+", " ");
+        Matcher table = TABLE.matcher(sql);
+        assertThat(table.find()).isTrue();
+        String verb = sql.contains("revision = revision + 1") ? "BUMP" : sql.substring(0, sql.indexOf(' '));
+        return verb + " " + table.group();
+    }
+
+    private static AgentConfigPayload agent(
+            String id,
+            String description,
+            List<WorkflowConfigPayload> workflows,
+            List<SkillConfigPayload> skills) {
+        String defaultWorkflowId = workflows.isEmpty() ? "" : workflows.get(0).id();
+        return new AgentConfigPayload(
+                id, id, "owner", "ONLINE", description, defaultWorkflowId, workflows, skills, null);
+    }
+
+    private static WorkflowConfigPayload workflow(String id) {
+        return new WorkflowConfigPayload(id, id, "", "");
+    }
+
+    private static SkillConfigPayload skill(String id, String promptTemplate, Map<String, String> variants) {
+        return new SkillConfigPayload(id, id, promptTemplate, variants);
+    }
+}
@@ -0,0 +1,112 @@
+package com.fun.agent.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fun.agent.api.client.PlaneClient;
+import com.fun.agent.api.client.SseFrame;
+import com.fun.agent.api.config.PlaneProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class TaskEventHubTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final PlaneClient planeClient = mock(PlaneClient.class);
+    private final AtomicInteger upstreamConnections = new AtomicInteger();
+    private volatile Sinks.Many<SseFrame> upstream;
+
+    @Test
+    void singleSubscriberResumesOnTheSameUpstreamWithinGrace() {
+        TaskEventHub hub = hub(30);
+
+        StepVerifier.create(hub.subscribe("task-1", null).map(SseFrame::id).take(2))
+                .then(() -> {
+                    upstream.tryEmitNext(frame("a1"));
+                    upstream.tryEmitNext(frame("a2"));
+                })
+                .expectNext("a1", "a2")
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        // the client is gone, but the upstream is held open and keeps recording
+        upstream.tryEmitNext(frame("a3"));
+        assertThat(hub.activeStreams()).isEqualTo(1);
+
+        StepVerifier.create(hub.subscribe("task-1", "a2").map(SseFrame::id).take(2))
+                .expectNext("a3")
+                .then(() -> upstream.tryEmitNext(frame("a4")))
+                .expectNext("a4")
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        assertThat(upstreamConnections).hasValue(1);
+    }
+
+    @Test
+    void singleSubscriberResumesFromClosedBufferAfterGrace() throws InterruptedException {
+        TaskEventHub hub = hub(0);
+
+        StepVerifier.create(hub.subscribe("task-1", null).map(SseFrame::id).take(3))
+                .then(() -> {
+                    upstream.tryEmitNext(frame("a1"));
+                    upstream.tryEmitNext(frame("a2"));
+                    upstream.tryEmitNext(frame("a3"));
+                })
+                .expectNext("a1", "a2", "a3")
+                .expectComplete()
+                .verify(TIMEOUT);
+        awaitNoActiveStreams(hub);
+
+        // the client only got a1 before the connection broke; the plane starts the new stream over; only events the client has not seen get through
+        StepVerifier.create(hub.subscribe("task-1", "a1").map(SseFrame::id).take(3))
+                .expectNext("a2", "a3")
+                .then(() -> {
+                    upstream.tryEmitNext(frame("a1"));
+                    upstream.tryEmitNext(frame("a2"));
+                    upstream.tryEmitNext(frame("a3"));
+                    upstream.tryEmitNext(frame("a4"));
+                })
+                .expectNext("a4")
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        assertThat(upstreamConnections).hasValue(2);
+    }
+
+    private TaskEventHub hub(int graceSeconds) {
+        when(planeClient.streamTaskEvents("task-1")).thenReturn(Flux.defer(() -> {
+            upstreamConnections.incrementAndGet();
+            upstream = Sinks.many().unicast().onBackpressureBuffer();
+            return upstream.asFlux();
+        }));
+        PlaneProperties properties = new PlaneProperties(
+                "http://plane", 30, 8, 500, 600, 1000,
+                16, 300, 1L << 20, 0, graceSeconds,
+                1000, 3600, 1000,
+                false, false, null, null);
+        TaskStatusCache statusCache = new TaskStatusCache(planeClient, properties);
+        return new TaskEventHub(planeClient, statusCache, properties, new SimpleMeterRegistry());
+    }
+
+    private static void awaitNoActiveStreams(TaskEventHub hub) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (hub.activeStreams() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(hub.activeStreams()).isZero();
+    }
+
+    private static SseFrame frame(String id) {
+        String text = "id:" + id + "\ndata:{\"status\":\"running\"}\n\n";
+        return new SseFrame(id, null, text.getBytes(StandardCharsets.UTF_8));
+    }
+}
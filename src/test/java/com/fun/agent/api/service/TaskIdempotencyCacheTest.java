@@ -0,0 +1,130 @@
+package com.fun.agent.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fun.agent.api.client.PlaneResponse;
+import com.fun.agent.api.config.PlaneProperties;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class TaskIdempotencyCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final PlaneResponse ACCEPTED = response("task-1");
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final TaskIdempotencyCache cache = new TaskIdempotencyCache(properties(10), nanos::get);
+    private volatile Sinks.One<PlaneResponse> upstream;
+
+    @Test
+    void duplicatesInFlightShareOneCall() {
+        AtomicReference<PlaneResponse> first = new AtomicReference<>();
+        execute().subscribe(first::set);
+
+        StepVerifier.create(execute())
+                .then(() -> upstream.tryEmitValue(ACCEPTED))
+                .expectNext(ACCEPTED)
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        assertThat(first).hasValue(ACCEPTED);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void otherKeysAndTenantsGetTheirOwnCall() {
+        cache.execute("tenant-a", "key-1", this::call).subscribe();
+        cache.execute("tenant-a", "key-2", this::call).subscribe();
+        cache.execute("tenant-b", "key-1", this::call).subscribe();
+
+        assertThat(upstreamCalls).hasValue(3);
+    }
+
+    @Test
+    void cancellingTheFirstSubscriberKeepsTheCallRunning() {
+        Disposable first = execute().subscribe();
+        Sinks.One<PlaneResponse> call = upstream;
+
+        first.dispose();
+        assertThat(call.currentSubscriberCount()).isEqualTo(1);
+
+        StepVerifier.create(execute())
+                .then(() -> call.tryEmitValue(ACCEPTED))
+                .expectNext(ACCEPTED)
+                .expectComplete()
+                .verify(TIMEOUT);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndIsNotCached() {
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        execute().subscribe(response -> { }, first::set);
+
+        StepVerifier.create(execute())
+                .then(() -> upstream.tryEmitError(new IllegalStateException("plane down")))
+                .expectErrorMessage("plane down")
+                .verify(TIMEOUT);
+        assertThat(first.get()).hasMessage("plane down");
+
+        StepVerifier.create(execute())
+                .then(() -> upstream.tryEmitValue(ACCEPTED))
+                .expectNext(ACCEPTED)
+                .expectComplete()
+                .verify(TIMEOUT);
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void ttlCountsFromTheResponseNotFromTheStartOfTheCall() {
+        execute().subscribe();
+        advance(Duration.ofSeconds(8));
+        upstream.tryEmitValue(ACCEPTED);
+
+        // 15s after the call started but only 7s after it completed: still replayed
+        advance(Duration.ofSeconds(7));
+        StepVerifier.create(execute()).expectNext(ACCEPTED).expectComplete().verify(TIMEOUT);
+        assertThat(upstreamCalls).hasValue(1);
+
+        advance(Duration.ofSeconds(3));
+        execute().subscribe();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    private Mono<PlaneResponse> execute() {
+        return cache.execute("tenant-a", "key-1", this::call);
+    }
+
+    private Mono<PlaneResponse> call() {
+        upstreamCalls.incrementAndGet();
+        upstream = Sinks.one();
+        return upstream.asMono();
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static PlaneResponse response(String taskId) {
+        byte[] body = ("{\"task_id\":\"" + taskId + "\"}").getBytes(StandardCharsets.UTF_8);
+        return new PlaneResponse(202, MediaType.APPLICATION_JSON, body);
+    }
+
+    private static PlaneProperties properties(int idempotencyTtlSeconds) {
+        return new PlaneProperties(
+                "http://plane", 30, 8, 500, idempotencyTtlSeconds, 1000,
+                16, 300, 1L << 20, 0, 30,
+                1000, 3600, 1000,
+                false, false, null, null);
+    }
+}
@@ -0,0 +1,119 @@
+package com.fun.agent.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fun.agent.api.config.TenantLimitsProperties;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class TenantAdmissionControllerTest {
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void burstIsAdmittedAtOnceThenTheRateApplies() {
+        // 10/s is one request every 100ms, with up to 5 at once
+        TenantAdmissionController controller = controller(new TenantLimitsProperties.Limit(10, 5, 0));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(admit(controller)).as("request %d of the burst", i).isNull();
+        }
+        assertThat(admit(controller)).isNotNull();
+
+        advance(Duration.ofMillis(100));
+        assertThat(admit(controller)).isNull();
+        assertThat(admit(controller)).isNotNull();
+    }
+
+    @Test
+    void steadyRateIsAdmittedIndefinitely() {
+        TenantAdmissionController controller = controller(new TenantLimitsProperties.Limit(10, 1, 0));
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(admit(controller)).as("request %d", i).isNull();
+            advance(Duration.ofMillis(100));
+        }
+        assertThat(admit(controller)).isNull();
+        assertThat(admit(controller)).isNotNull();
+    }
+
+    @Test
+    void idleTimeRefillsTheBurstButNoFurther() {
+        TenantAdmissionController controller = controller(new TenantLimitsProperties.Limit(10, 3, 0));
+        for (int i = 0; i < 3; i++) {
+            admit(controller);
+        }
+
+        advance(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(admit(controller)).as("request %d after idling", i).isNull();
+        }
+        assertThat(admit(controller)).isNotNull();
+    }
+
+    @Test
+    void retryAfterIsTheWaitRoundedUpToWholeSeconds() {
+        // one request every 2s, no burst
+        TenantAdmissionController controller = controller(new TenantLimitsProperties.Limit(0.5, 1, 0));
+        assertThat(admit(controller)).isNull();
+
+        assertThat(retryAfter(admit(controller))).isEqualTo("2");
+        advance(Duration.ofMillis(500));
+        assertThat(retryAfter(admit(controller))).isEqualTo("2");
+        advance(Duration.ofMillis(500));
+        assertThat(retryAfter(admit(controller))).isEqualTo("1");
+        advance(Duration.ofMillis(999));
+        assertThat(retryAfter(admit(controller))).isEqualTo("1");
+        advance(Duration.ofMillis(1));
+        assertThat(admit(controller)).isNull();
+    }
+
+    @Test
+    void inFlightLimitHoldsASlotUntilTheCallEnds() {
+        TenantAdmissionController controller = controller(new TenantLimitsProperties.Limit(0, 0, 1));
+        Sinks.One<String> running = Sinks.one();
+        controller.admit("tenant-a", running::asMono).subscribe();
+
+        TenantThrottledException throttled = admit(controller);
+        assertThat(throttled).isNotNull();
+        assertThat(throttled.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(retryAfter(throttled)).isEqualTo("1");
+        // rejected requests do not hold a slot, and other tenants have their own
+        assertThat(controller.admit("tenant-b", () -> Mono.just("ok")).block()).isEqualTo("ok");
+
+        running.tryEmitValue("done");
+        assertThat(admit(controller)).isNull();
+    }
+
+    private TenantAdmissionController controller(TenantLimitsProperties.Limit limit) {
+        return new TenantAdmissionController(new TenantLimitsProperties(true, limit, Map.of()), nanos::get);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    /**
+     * Admits one call for {@code tenant-a}, returning how it was throttled or {@code null} when it ran.
+     */
+    private static TenantThrottledException admit(TenantAdmissionController controller) {
+        try {
+            controller.admit("tenant-a", () -> Mono.just("ok")).block();
+            return null;
+        } catch (TenantThrottledException throttled) {
+            return throttled;
+        }
+    }
+
+    private static String retryAfter(TenantThrottledException throttled) {
+        assertThat(throttled).isNotNull();
+        return throttled.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+    }
+}